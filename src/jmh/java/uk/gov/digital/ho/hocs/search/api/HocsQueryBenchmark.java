@@ -0,0 +1,203 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
+import org.elasticsearch.action.admin.indices.get.GetIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateCorrespondentRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.DateRangeDto;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CaseDataCodec;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CaseIndexTemplate;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CaseIndices;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.Correspondent;
+import uk.gov.digital.ho.hocs.search.domain.model.Topic;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs against a local ES node (-Des.host, default localhost:9200), seeding {@code bench-case} and the index-sorted
+ * {@code bench-case-sorted} on first use. Delete both after changing the template so they are seeded with the new mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HocsQueryBenchmark {
+
+    private static final String INDEX = "bench-case";
+
+    private static final String SORTED_INDEX = "bench-case-sorted";
+
+    private static final List<String> TYPES = List.of("MIN", "TRO", "DTEN", "MPAM", "COMP");
+
+    private static final List<String> NAMES = List.of("Smith", "Jones", "Taylor", "Brown", "Williams", "Wilson", "Johnson", "Davies");
+
+    @Param("200000")
+    private int documents;
+
+    private RestHighLevelClient client;
+
+    @Setup
+    public void setup() throws IOException {
+        client = new RestHighLevelClient(RestClient.builder(HttpHost.create(System.getProperty("es.host", "localhost:9200"))));
+        if (!client.indices().exists(new GetIndexRequest().indices(INDEX), RequestOptions.DEFAULT)) {
+            seed(INDEX, false);
+        }
+        if (!client.indices().exists(new GetIndexRequest().indices(SORTED_INDEX), RequestOptions.DEFAULT)) {
+            seed(SORTED_INDEX, true);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public SearchResponse mustQuery() throws IOException {
+        BoolQueryBuilder filtered = activeMinisterialQuery();
+        BoolQueryBuilder query = QueryBuilders.boolQuery();
+        filtered.filter().forEach(query::must);
+        filtered.must().forEach(query::must);
+        return clauseSearch(query);
+    }
+
+    @Benchmark
+    public SearchResponse filterQuery() throws IOException {
+        return clauseSearch(activeMinisterialQuery());
+    }
+
+    // mustQuery and filterQuery send the same clauses and request settings, differing only in must vs filter context
+    private static BoolQueryBuilder activeMinisterialQuery() {
+        HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(QueryBuilders.boolQuery());
+        hocsQueryBuilder.caseTypes(List.of("MIN"));
+        hocsQueryBuilder.dateRange(new DateRangeDto("2019-01-01", "2019-06-30"));
+        hocsQueryBuilder.correspondent("Smith");
+        hocsQueryBuilder.activeOnlyFlag(true);
+        return hocsQueryBuilder.build();
+    }
+
+    private SearchResponse clauseSearch(BoolQueryBuilder query) throws IOException {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(query)
+                .size(500)
+                .fetchSource(false)
+                .sort(SortBuilders.fieldSort("_doc"))
+                .trackTotalHits(false);
+        return client.search(new SearchRequest(INDEX).source(source), RequestOptions.DEFAULT);
+    }
+
+    @Benchmark
+    public SearchResponse nestedCorrespondent() throws IOException {
+        return correspondentSearch(false);
+    }
+
+    @Benchmark
+    public SearchResponse flattenedCorrespondent() throws IOException {
+        return correspondentSearch(true);
+    }
+
+    private SearchResponse correspondentSearch(boolean flattened) throws IOException {
+        HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(QueryBuilders.boolQuery(), flattened);
+        hocsQueryBuilder.correspondent("Alex Smith");
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(hocsQueryBuilder.build())
+                .size(500)
+                .fetchSource(false)
+                .sort(SortBuilders.fieldSort("_doc"))
+                .trackTotalHits(false);
+        return client.search(new SearchRequest(INDEX).source(source), RequestOptions.DEFAULT);
+    }
+
+    @Benchmark
+    public SearchResponse newestFirst() throws IOException {
+        return newestFirstSearch(INDEX);
+    }
+
+    @Benchmark
+    public SearchResponse newestFirstSorted() throws IOException {
+        return newestFirstSearch(SORTED_INDEX);
+    }
+
+    private SearchResponse newestFirstSearch(String index) throws IOException {
+        HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(QueryBuilders.boolQuery(), true);
+        hocsQueryBuilder.caseTypes(List.of("MIN"));
+        hocsQueryBuilder.activeOnlyFlag(true);
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(hocsQueryBuilder.build())
+                .size(500)
+                .fetchSource(false)
+                .sort(SortBuilders.fieldSort("dateReceived").order(SortOrder.DESC).missing("_last"))
+                .sort(SortBuilders.fieldSort("caseUUID").order(SortOrder.ASC))
+                .trackTotalHits(false);
+        return client.search(new SearchRequest(index).source(source), RequestOptions.DEFAULT);
+    }
+
+    private void seed(String index, boolean sorted) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        CaseDataCodec codec = new CaseDataCodec(objectMapper);
+        CaseIndexTemplate template = new CaseIndexTemplate(objectMapper, client, new SimpleMeterRegistry(), new CaseIndices(client, "bench", "none", 12, "none", "", false), "1s", 1, 0, 1, false, sorted, true);
+
+        client.indices().create(new CreateIndexRequest(index)
+                .settings(Settings.builder().put(template.getSettings()).put("index.refresh_interval", "-1").put("index.number_of_replicas", 0))
+                .mapping("caseData", template.getMapping()), RequestOptions.DEFAULT);
+
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2018, 1, 1);
+        BulkRequest bulkRequest = new BulkRequest();
+        for (int i = 0; i < documents; i++) {
+            LocalDate received = start.plusDays(random.nextInt(730));
+            CaseData caseData = new CaseData(UUID.randomUUID());
+            caseData.create(new CreateCaseRequest(caseData.getCaseUUID(), LocalDateTime.now(), TYPES.get(random.nextInt(TYPES.size())), "REF/" + i, received.plusDays(20), received));
+            caseData.addCorrespondent(Correspondent.from(new CreateCorrespondentRequest(UUID.randomUUID(), LocalDateTime.now(), "CORRESPONDENT", "Alex " + NAMES.get(random.nextInt(NAMES.size())), null, null, null, null)));
+            caseData.addTopic(Topic.from(new CreateTopicRequest(UUID.randomUUID(), "Topic " + random.nextInt(50))));
+            if (random.nextInt(3) == 0) {
+                caseData.complete();
+            }
+            bulkRequest.add(new IndexRequest(index, "caseData", caseData.getCaseUUID().toString()).source(codec.write(caseData), XContentType.JSON));
+            if (bulkRequest.numberOfActions() == 1000) {
+                client.bulk(bulkRequest, RequestOptions.DEFAULT);
+                bulkRequest = new BulkRequest();
+            }
+        }
+        if (bulkRequest.numberOfActions() > 0) {
+            client.bulk(bulkRequest, RequestOptions.DEFAULT);
+        }
+        client.indices().refresh(new RefreshRequest(index), RequestOptions.DEFAULT);
+    }
+}
@@ -0,0 +1,78 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateCorrespondentRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.Correspondent;
+import uk.gov.digital.ho.hocs.search.domain.model.Topic;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CaseDataCodecBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private CaseDataCodec codec;
+
+    private CaseData caseData;
+
+    private BytesReference source;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        codec = new CaseDataCodec(objectMapper);
+
+        caseData = new CaseData(UUID.randomUUID());
+        caseData.create(new CreateCaseRequest(UUID.randomUUID(), LocalDateTime.now(), "MIN", "MIN/0000001/19", LocalDate.now().plusDays(20), LocalDate.now()));
+        for (int i = 0; i < 3; i++) {
+            caseData.addCorrespondent(Correspondent.from(new CreateCorrespondentRequest(UUID.randomUUID(), LocalDateTime.now(), "CORRESPONDENT", "Full Name " + i, null, "01234 567890", "name@example.com", "REF" + i)));
+            caseData.addTopic(Topic.from(new CreateTopicRequest(UUID.randomUUID(), "Topic " + i)));
+        }
+        source = new BytesArray(codec.write(caseData));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public IndexRequest writeViaMap() {
+        return new IndexRequest("bench", "caseData", "1").source(objectMapper.convertValue(caseData, Map.class));
+    }
+
+    @Benchmark
+    public IndexRequest writeViaCodec() {
+        return new IndexRequest("bench", "caseData", "1").source(codec.write(caseData), XContentType.JSON);
+    }
+
+    @Benchmark
+    public CaseData readViaMap() {
+        return objectMapper.convertValue(XContentHelper.convertToMap(source, false, XContentType.JSON).v2(), CaseData.class);
+    }
+
+    @Benchmark
+    public CaseData readViaCodec() {
+        return codec.read(source);
+    }
+}
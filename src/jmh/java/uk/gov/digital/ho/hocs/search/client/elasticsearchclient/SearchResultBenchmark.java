@@ -0,0 +1,115 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateCorrespondentRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.Correspondent;
+import uk.gov.digital.ho.hocs.search.domain.model.Topic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchResultBenchmark {
+
+    @Param("500")
+    private int hits;
+
+    private CaseDataCodec codec;
+
+    private byte[] sourceResponse;
+
+    private byte[] idResponse;
+
+    @Setup
+    public void setup() {
+        codec = new CaseDataCodec(new ObjectMapper().registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+        StringBuilder withSource = new StringBuilder();
+        StringBuilder withoutSource = new StringBuilder();
+        for (int i = 0; i < hits; i++) {
+            CaseData caseData = new CaseData(UUID.randomUUID());
+            caseData.create(new CreateCaseRequest(caseData.getCaseUUID(), LocalDateTime.now(), "MIN", "MIN/" + i + "/19", LocalDate.now().plusDays(20), LocalDate.now()));
+            for (int j = 0; j < 3; j++) {
+                caseData.addCorrespondent(Correspondent.from(new CreateCorrespondentRequest(UUID.randomUUID(), LocalDateTime.now(), "CORRESPONDENT", "Full Name " + j, null, "01234 567890", "name@example.com", "REF" + j)));
+                caseData.addTopic(Topic.from(new CreateTopicRequest(UUID.randomUUID(), "Topic " + j)));
+            }
+            String hit = "{\"_index\":\"bench-case\",\"_type\":\"caseData\",\"_id\":\"" + caseData.getCaseUUID() + "\",\"_score\":null";
+            String separator = i == 0 ? "" : ",";
+            withSource.append(separator).append(hit).append(",\"_source\":").append(new String(codec.write(caseData), StandardCharsets.UTF_8)).append("}");
+            withoutSource.append(separator).append(hit).append("}");
+        }
+        sourceResponse = response(withSource);
+        idResponse = response(withoutSource);
+    }
+
+    @Benchmark
+    public Set<UUID> sourceHits(ResponseSize size) throws IOException {
+        size.responseBytes = sourceResponse.length;
+        SearchResponse response = parse(sourceResponse);
+        Set<CaseData> cases = new HashSet<>();
+        for (SearchHit hit : response.getHits().getHits()) {
+            cases.add(codec.read(hit.getSourceRef()));
+        }
+        return cases.stream().map(CaseData::getCaseUUID).collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public Set<UUID> idHits(ResponseSize size) throws IOException {
+        size.responseBytes = idResponse.length;
+        SearchResponse response = parse(idResponse);
+        SearchHit[] searchHit = response.getHits().getHits();
+        Set<UUID> caseUUIDs = new HashSet<>((int) (searchHit.length / 0.75f) + 1);
+        for (SearchHit hit : searchHit) {
+            caseUUIDs.add(UUID.fromString(hit.getId()));
+        }
+        return caseUUIDs;
+    }
+
+    // Reported alongside the timings as the size of the response each benchmark parses
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ResponseSize {
+
+        public long responseBytes;
+    }
+
+    private static byte[] response(StringBuilder hits) {
+        return ("{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+                + "\"hits\":{\"total\":-1,\"max_score\":null,\"hits\":[" + hits + "]}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static SearchResponse parse(byte[] body) throws IOException {
+        try (XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, body)) {
+            return SearchResponse.fromXContent(parser);
+        }
+    }
+}
@@ -2,12 +2,29 @@ package uk.gov.digital.ho.hocs.search.api;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.gov.digital.ho.hocs.search.api.dto.BatchSearchResult;
+import uk.gov.digital.ho.hocs.search.api.dto.CorrespondentSuggestion;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchFacets;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchPage;
 import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -15,11 +32,16 @@ import java.util.UUID;
 @RestController
 class CaseDataResource {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final CaseDataService caseDataService;
 
+    private final CorrespondentTypeahead correspondentTypeahead;
+
     @Autowired
-    public CaseDataResource(CaseDataService caseDataService) {
+    public CaseDataResource(CaseDataService caseDataService, CorrespondentTypeahead correspondentTypeahead) {
         this.caseDataService = caseDataService;
+        this.correspondentTypeahead = correspondentTypeahead;
     }
 
     @PostMapping(value = "/case")
@@ -27,4 +49,62 @@ class CaseDataResource {
         Set<UUID> results = caseDataService.search(request);
         return ResponseEntity.ok(results);
     }
-}
\ No newline at end of file
+
+    @PostMapping(value = "/case/batch")
+    ResponseEntity<List<BatchSearchResult>> searchBatch(@RequestBody List<SearchRequest> requests) {
+        List<BatchSearchResult> results = caseDataService.searchBatch(requests);
+        return ResponseEntity.ok(results);
+    }
+
+    @PostMapping(value = "/case/facets")
+    ResponseEntity<SearchFacets> facets(@RequestBody SearchRequest request,
+                                        @RequestParam(value = "interval", required = false) String interval) {
+        SearchFacets facets = caseDataService.facets(request, interval);
+        return ResponseEntity.ok(facets);
+    }
+
+    @GetMapping(value = "/case/correspondents/typeahead")
+    ResponseEntity<List<CorrespondentSuggestion>> suggestCorrespondents(@RequestParam("prefix") String prefix,
+                                                                        @RequestParam(value = "size", required = false) Integer size) {
+        List<CorrespondentSuggestion> suggestions = correspondentTypeahead.suggest(prefix, size);
+        return ResponseEntity.ok(suggestions);
+    }
+
+    @PostMapping(value = "/case/page")
+    ResponseEntity<SearchPage> searchPage(@RequestBody SearchRequest request,
+                                          @RequestParam(value = "size", required = false) Integer size,
+                                          @RequestParam(value = "after", required = false) String after) {
+        SearchPage page = caseDataService.searchPage(request, size, after);
+        return ResponseEntity.ok(page);
+    }
+
+    @PostMapping(value = "/case/stream")
+    ResponseEntity<StreamingResponseBody> stream(@RequestBody SearchRequest request) {
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            try {
+                caseDataService.searchAll(request, page -> {
+                    try {
+                        for (UUID caseUUID : page) {
+                            writer.write('"');
+                            writer.write(caseUUID.toString());
+                            writer.write("\"\n");
+                        }
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    @ExceptionHandler(ApplicationExceptions.BadRequestException.class)
+    ResponseEntity<String> badRequest(ApplicationExceptions.BadRequestException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
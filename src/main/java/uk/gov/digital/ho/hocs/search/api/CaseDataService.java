@@ -1,18 +1,35 @@
 package uk.gov.digital.ho.hocs.search.api;
 
 import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import uk.gov.digital.ho.hocs.search.api.dto.*;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.BulkSaveResult;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CaseFacets;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CasePage;
 import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.ElasticSearchClient;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.MultiSearchResult;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
 import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.Correspondent;
 import uk.gov.digital.ho.hocs.search.domain.model.Topic;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static net.logstash.logback.argument.StructuredArguments.value;
 import static uk.gov.digital.ho.hocs.search.application.LogEvent.*;
@@ -21,94 +38,141 @@ import static uk.gov.digital.ho.hocs.search.application.LogEvent.*;
 @Slf4j
 public class CaseDataService {
 
+    private static final Set<String> CREATE_FIELDS = Set.of("created", "type", "reference", "caseDeadline", "dateReceived");
+
+    private static final Set<String> UPDATE_FIELDS = Set.of("created", "type", "reference", "primaryTopic", "primaryCorrespondent", "caseDeadline", "dateReceived");
+
+    private static final Set<String> DELETE_FIELDS = Set.of("deleted");
+
+    private static final Set<String> COMPLETE_FIELDS = Set.of("completed");
+
+    private static final int MAX_CONFLICT_ATTEMPTS = 3;
+
+    private static final String CURSOR_SEPARATOR = ":";
+
+    private static final Map<String, DateHistogramInterval> FACET_INTERVALS = Map.of(
+            "day", DateHistogramInterval.DAY,
+            "week", DateHistogramInterval.WEEK,
+            "month", DateHistogramInterval.MONTH,
+            "year", DateHistogramInterval.YEAR);
+
+    private static final int FACET_TYPES_LIMIT = 100;
+
     private final ElasticSearchClient elasticSearchClient;
 
+    private final SearchResultCache searchResultCache;
+
+    private final SearchCoalescer searchCoalescer;
+
     private final int resultsLimit;
 
+    private final int pageSize;
+
+    private final int maxBatchSearches;
+
+    private final boolean flattenedSearch;
+
     @Autowired
-    public CaseDataService(ElasticSearchClient elasticSearchClient, @Value("${elastic.results.limit}") int resultsLimit) {
+    public CaseDataService(ElasticSearchClient elasticSearchClient, SearchResultCache searchResultCache, SearchCoalescer searchCoalescer, @Value("${elastic.results.limit}") int resultsLimit, @Value("${elastic.page.size}") int pageSize, @Value("${elastic.batch.maxSearches}") int maxBatchSearches, @Value("${elastic.search.flattened}") boolean flattenedSearch) {
         this.elasticSearchClient = elasticSearchClient;
+        this.searchResultCache = searchResultCache;
+        this.searchCoalescer = searchCoalescer;
         this.resultsLimit = resultsLimit;
+        this.pageSize = pageSize;
+        this.maxBatchSearches = maxBatchSearches;
+        this.flattenedSearch = flattenedSearch;
     }
 
     public void createCase(UUID caseUUID, CreateCaseRequest createCaseRequest) {
         log.debug("Creating case {}", caseUUID);
-        CaseData caseData = getCaseData(caseUUID);
+        CaseData caseData = new CaseData(caseUUID);
         caseData.create(createCaseRequest);
-        elasticSearchClient.save(caseData);
+        elasticSearchClient.create(caseData, CREATE_FIELDS);
         log.info("Created case {}", caseUUID, value(EVENT, SEARCH_CASE_CREATED));
 
     }
 
     public void updateCase(UUID caseUUID, UpdateCaseRequest updateCaseRequest) {
         log.debug("Updating case {}", caseUUID);
-        CaseData caseData = getCaseData(caseUUID);
+        CaseData caseData = new CaseData(caseUUID);
         caseData.update(updateCaseRequest);
-        elasticSearchClient.update(caseData);
+        elasticSearchClient.update(caseData, UPDATE_FIELDS);
         log.info("Updated case {}", caseUUID, value(EVENT, SEARCH_CASE_UPDATED));
     }
 
     public void deleteCase(UUID caseUUID) {
         log.debug("Deleting case {}", caseUUID);
-        CaseData caseData = getCaseData(caseUUID);
+        CaseData caseData = new CaseData(caseUUID);
         caseData.delete();
-        elasticSearchClient.update(caseData);
+        elasticSearchClient.update(caseData, DELETE_FIELDS);
         log.info("Deleted case {}", caseUUID, value(EVENT, SEARCH_CASE_DELETED));
     }
 
     public void completeCase(UUID caseUUID) {
         log.debug("Complete case {}", caseUUID);
-        CaseData caseData = getCaseData(caseUUID);
+        CaseData caseData = new CaseData(caseUUID);
         caseData.complete();
-        elasticSearchClient.update(caseData);
+        elasticSearchClient.update(caseData, COMPLETE_FIELDS);
         log.info("Compeleted case {}", caseUUID, value(EVENT, SEARCH_CASE_DELETED));
     }
 
     public void createCorrespondent(UUID caseUUID, CreateCorrespondentRequest createCorrespondentRequest) {
         log.debug("Adding correspondent {} to case {}", createCorrespondentRequest.getUuid(), caseUUID);
-        CaseData caseData = getCaseData(caseUUID);
-        caseData.addCorrespondent(createCorrespondentRequest);
-        elasticSearchClient.update(caseData);
+        elasticSearchClient.addCorrespondent(caseUUID, Correspondent.from(createCorrespondentRequest));
         log.info("Added correspondent {} to case {}", createCorrespondentRequest.getUuid(), caseUUID, value(EVENT, SEARCH_CORRESPONDENT_ADDED));
     }
 
     public void deleteCorrespondent(UUID caseUUID, String correspondentUUID) {
         log.debug("Deleting correspondent {} from case {}", correspondentUUID, caseUUID);
-        CaseData caseData = getCaseData(caseUUID);
-        caseData.removeCorrespondent(UUID.fromString(correspondentUUID));
-        elasticSearchClient.update(caseData);
+        elasticSearchClient.removeCorrespondent(caseUUID, UUID.fromString(correspondentUUID));
         log.info("Deleted correspondent {} from case {}", correspondentUUID, caseUUID, value(EVENT, SEARCH_CORRESPONDENT_DELETED));
     }
 
     public void createTopic(UUID caseUUID, CreateTopicRequest createTopicRequest) {
         log.debug("Adding topic {} to case {}", createTopicRequest.getUuid(), caseUUID);
-        CaseData caseData = getCaseData(caseUUID);
-        caseData.addTopic(Topic.from(createTopicRequest));
-        elasticSearchClient.update(caseData);
+        elasticSearchClient.addTopic(caseUUID, Topic.from(createTopicRequest));
         log.info("Added topic {} to case {}", createTopicRequest.getUuid(), caseUUID, value(EVENT, SEARCH_TOPIC_ADDED));
     }
 
     public void deleteTopic(UUID caseUUID, String topicUUID) {
         log.debug("Deleting topic {} from case {}", topicUUID, caseUUID);
-        CaseData caseData = getCaseData(caseUUID);
-        caseData.removeTopic(UUID.fromString(topicUUID));
-        elasticSearchClient.update(caseData);
+        elasticSearchClient.removeTopic(caseUUID, UUID.fromString(topicUUID));
         log.info("Deleted topic {} from case {}", topicUUID, caseUUID, value(EVENT, SEARCH_TOPIC_DELETED));
     }
 
+    public Map<UUID, String> applyAll(Map<UUID, List<Consumer<CaseData>>> mutations) {
+        log.debug("Applying batch for {} cases", mutations.size());
+        Map<UUID, String> failures = new HashMap<>();
+        Set<UUID> pending = mutations.keySet();
+        for (int attempt = 1; attempt <= MAX_CONFLICT_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            Map<UUID, CaseData> cases = elasticSearchClient.findAllById(pending);
+            cases.forEach((caseUUID, caseData) -> mutations.get(caseUUID).forEach(mutation -> mutation.accept(caseData)));
+            BulkSaveResult result = elasticSearchClient.saveAll(cases.values());
+            failures.putAll(result.getFailures());
+            pending = result.getConflicts();
+            if (!pending.isEmpty()) {
+                log.debug("Retrying {} conflicting cases, attempt {}", pending.size(), attempt);
+            }
+        }
+        pending.forEach(caseUUID -> failures.put(caseUUID, "Version conflict"));
+        log.info("Applied batch for {} cases, {} failed", mutations.size(), failures.size(), value(EVENT, SEARCH_BATCH_APPLIED));
+        return failures;
+    }
+
     Set<UUID> search(SearchRequest request) {
         log.info("Searching for case {}", request.toString(), value(EVENT, SEARCH_REQUEST));
-        HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(QueryBuilders.boolQuery());
-        hocsQueryBuilder.caseTypes(request.getCaseTypes());
-        hocsQueryBuilder.dateRange(request.getDateReceived());
-        hocsQueryBuilder.correspondent(request.getCorrespondentName());
-        hocsQueryBuilder.topic(request.getTopic());
-        hocsQueryBuilder.dataFields(request.getData());
-        hocsQueryBuilder.activeOnlyFlag(request.getActiveOnly());
+        HocsQueryBuilder hocsQueryBuilder = queryBuilder(request);
 
         Set<UUID> caseUUIDs;
         if (hocsQueryBuilder.hasClauses()) {
-            caseUUIDs = elasticSearchClient.search(hocsQueryBuilder.build(), resultsLimit);
+            BoolQueryBuilder query = hocsQueryBuilder.build();
+            try {
+                SearchRequestKey key = SearchRequestKey.of(request);
+                caseUUIDs = searchResultCache.get(key, () -> searchCoalescer.execute(key, () -> elasticSearchClient.search(query, resultsLimit)));
+            } catch (ApplicationExceptions.ResourceServerException e) {
+                log.warn("Search failed, returning empty set. {}", e.getMessage(), value(EVENT, SEARCH_FAILED));
+                caseUUIDs = new HashSet<>(0);
+            }
         } else {
             caseUUIDs = new HashSet<>(0);
         }
@@ -117,9 +181,121 @@ public class CaseDataService {
         return caseUUIDs;
     }
 
-    private CaseData getCaseData(UUID caseUUID) {
-        log.debug("Fetching Case {}", caseUUID);
-        return elasticSearchClient.findById(caseUUID);
+    List<BatchSearchResult> searchBatch(List<SearchRequest> requests) {
+        log.info("Searching for batch of {} requests", requests.size(), value(EVENT, SEARCH_REQUEST));
+        if (requests.size() > maxBatchSearches) {
+            throw new ApplicationExceptions.BadRequestException("Batch of %d searches exceeds limit of %d", SEARCH_REQUEST_INVALID, requests.size(), maxBatchSearches);
+        }
+
+        List<BoolQueryBuilder> queries = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        BatchSearchResult[] results = new BatchSearchResult[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            HocsQueryBuilder hocsQueryBuilder = queryBuilder(requests.get(i));
+            if (hocsQueryBuilder.hasClauses()) {
+                queries.add(hocsQueryBuilder.build());
+                positions.add(i);
+            } else {
+                results[i] = new BatchSearchResult(new HashSet<>(0), null);
+            }
+        }
+
+        if (!queries.isEmpty()) {
+            try {
+                List<MultiSearchResult> searchResults = elasticSearchClient.multiSearch(queries, resultsLimit);
+                for (int i = 0; i < searchResults.size(); i++) {
+                    MultiSearchResult searchResult = searchResults.get(i);
+                    results[positions.get(i)] = new BatchSearchResult(searchResult.getCaseUUIDs(), searchResult.getFailure());
+                }
+            } catch (ApplicationExceptions.ResourceServerException e) {
+                log.warn("Batch search failed. {}", e.getMessage(), value(EVENT, SEARCH_FAILED));
+                positions.forEach(position -> results[position] = new BatchSearchResult(null, e.getMessage()));
+            }
+        }
+
+        log.info("Results for batch of {} requests", requests.size(), value(EVENT, SEARCH_RESPONSE));
+        return Arrays.asList(results);
+    }
+
+    SearchFacets facets(SearchRequest request, String interval) {
+        log.info("Counting cases {}", request.toString(), value(EVENT, SEARCH_REQUEST));
+        DateHistogramInterval histogramInterval = FACET_INTERVALS.get(interval == null ? "month" : interval);
+        if (histogramInterval == null) {
+            throw new ApplicationExceptions.BadRequestException("Unsupported interval %s", SEARCH_REQUEST_INVALID, interval);
+        }
+
+        CaseFacets facets = elasticSearchClient.facets(queryBuilder(request).build(), histogramInterval, FACET_TYPES_LIMIT);
+        log.info("Counted {} cases", facets.getTotal(), value(EVENT, SEARCH_RESPONSE));
+        return new SearchFacets(facets.getTotal(), facets.getOpen(), facets.getCompleted(), facets.getCaseTypes(), facets.getDateReceived());
+    }
+
+    SearchPage searchPage(SearchRequest request, Integer size, String after) {
+        log.info("Searching for page of cases {}", request.toString(), value(EVENT, SEARCH_REQUEST));
+        HocsQueryBuilder hocsQueryBuilder = queryBuilder(request);
+        Object[] searchAfter = decodeCursor(after);
+        if (!hocsQueryBuilder.hasClauses()) {
+            return new SearchPage(Collections.emptyList(), null);
+        }
+
+        int limit = size == null ? pageSize : Math.max(1, Math.min(size, pageSize));
+        CasePage page = elasticSearchClient.searchPage(hocsQueryBuilder.build(), limit, searchAfter);
+
+        log.info("Results {}", page.getCaseUUIDs().size(), value(EVENT, SEARCH_RESPONSE));
+        return new SearchPage(page.getCaseUUIDs(), encodeCursor(page.getSearchAfter()));
+    }
+
+    long searchAll(SearchRequest request, Consumer<List<UUID>> pageConsumer) {
+        log.info("Streaming search for cases {}", request.toString(), value(EVENT, SEARCH_REQUEST));
+        HocsQueryBuilder hocsQueryBuilder = queryBuilder(request);
+        if (!hocsQueryBuilder.hasClauses()) {
+            return 0;
+        }
+
+        BoolQueryBuilder query = hocsQueryBuilder.build();
+        long results = 0;
+        Object[] searchAfter = null;
+        do {
+            CasePage page = elasticSearchClient.searchPage(query, pageSize, searchAfter);
+            if (!page.getCaseUUIDs().isEmpty()) {
+                pageConsumer.accept(page.getCaseUUIDs());
+                results += page.getCaseUUIDs().size();
+            }
+            searchAfter = page.getSearchAfter();
+        } while (searchAfter != null);
+
+        log.info("Results {}", results, value(EVENT, SEARCH_RESPONSE));
+        return results;
+    }
+
+    private HocsQueryBuilder queryBuilder(SearchRequest request) {
+        HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(QueryBuilders.boolQuery(), flattenedSearch);
+        hocsQueryBuilder.caseTypes(request.getCaseTypes());
+        hocsQueryBuilder.dateRange(request.getDateReceived());
+        hocsQueryBuilder.correspondent(request.getCorrespondentName());
+        hocsQueryBuilder.topic(request.getTopic());
+        hocsQueryBuilder.dataFields(request.getData());
+        hocsQueryBuilder.activeOnlyFlag(request.getActiveOnly());
+        return hocsQueryBuilder;
+    }
+
+    private static String encodeCursor(Object[] sortValues) {
+        if (sortValues == null) {
+            return null;
+        }
+        String cursor = sortValues[0] + CURSOR_SEPARATOR + sortValues[1];
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, 2);
+            return new Object[]{Long.parseLong(parts[0]), parts[1]};
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new ApplicationExceptions.BadRequestException("Invalid cursor %s", SEARCH_REQUEST_INVALID, cursor);
+        }
     }
 
 }
\ No newline at end of file
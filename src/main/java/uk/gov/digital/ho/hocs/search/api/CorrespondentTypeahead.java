@@ -0,0 +1,119 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.api.dto.CorrespondentSuggestion;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CorrespondentMatch;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CorrespondentNames;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.ElasticSearchClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Component
+public class CorrespondentTypeahead {
+
+    private static final int CASES_PER_SUGGESTION = 5;
+
+    private final ElasticSearchClient elasticSearchClient;
+
+    private final int defaultSize;
+
+    private final int maxSize;
+
+    private final int maxEntries;
+
+    private final long ttl;
+
+    private final Map<String, Entry> prefixes = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    @Autowired
+    public CorrespondentTypeahead(ElasticSearchClient elasticSearchClient,
+                                  @Value("${search.typeahead.size}") int defaultSize,
+                                  @Value("${search.typeahead.maxSize}") int maxSize,
+                                  @Value("${search.typeahead.cache.maxEntries}") int maxEntries,
+                                  @Value("${search.typeahead.cache.ttl}") long ttl,
+                                  MeterRegistry meterRegistry) {
+        this.elasticSearchClient = elasticSearchClient;
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.hitCounter = meterRegistry.counter("search.typeahead.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("search.typeahead.cache.requests", "result", "miss");
+        meterRegistry.gauge("search.typeahead.cache.size", this, CorrespondentTypeahead::size);
+    }
+
+    public List<CorrespondentSuggestion> suggest(String prefix, Integer size) {
+        String normalised = prefix == null ? "" : String.join(" ", CorrespondentNames.tokens(prefix));
+        if (normalised.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int limit = size == null ? defaultSize : Math.max(1, Math.min(size, maxSize));
+        String key = normalised + "|" + limit;
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = prefixes.get(key);
+            if (entry != null && now - entry.loadedAt < ttl) {
+                hitCounter.increment();
+                return entry.suggestions;
+            }
+        }
+
+        missCounter.increment();
+        // Many cases share a correspondent, so fetch more cases than suggestions and keep the first case for each name
+        List<CorrespondentMatch> matches = elasticSearchClient.suggestCorrespondents(normalised, limit * CASES_PER_SUGGESTION);
+        List<CorrespondentSuggestion> suggestions = new ArrayList<>(limit);
+        Set<List<String>> names = new HashSet<>();
+        for (CorrespondentMatch match : matches) {
+            if (suggestions.size() < limit && names.add(CorrespondentNames.tokens(match.getFullname()))) {
+                suggestions.add(new CorrespondentSuggestion(match.getFullname(), match.getCaseUUID()));
+            }
+        }
+        suggestions = Collections.unmodifiableList(suggestions);
+        put(key, new Entry(suggestions, now));
+        log.debug("Found {} correspondents for prefix {}", suggestions.size(), normalised);
+        return suggestions;
+    }
+
+    public synchronized int size() {
+        return prefixes.size();
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        prefixes.put(key, entry);
+        if (prefixes.size() > maxEntries) {
+            prefixes.remove(prefixes.keySet().iterator().next());
+        }
+    }
+
+    private static class Entry {
+
+        private final List<CorrespondentSuggestion> suggestions;
+
+        private final long loadedAt;
+
+        Entry(List<CorrespondentSuggestion> suggestions, long loadedAt) {
+            this.suggestions = suggestions;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
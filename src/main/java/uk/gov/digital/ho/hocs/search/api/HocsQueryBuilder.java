@@ -13,19 +13,28 @@ import java.util.stream.Collectors;
 @Slf4j
 class HocsQueryBuilder {
 
+    private static final int FLATTENED_SLOP = 50;
+
     private final BoolQueryBuilder mqb;
 
+    private final boolean flattened;
+
     private boolean hasClause = false;
 
     HocsQueryBuilder(BoolQueryBuilder mqb) {
+        this(mqb, false);
+    }
+
+    HocsQueryBuilder(BoolQueryBuilder mqb, boolean flattened) {
         this.mqb = mqb;
+        this.flattened = flattened;
     }
 
     HocsQueryBuilder caseTypes(List<String> caseTypes) {
         if (caseTypes != null && !caseTypes.isEmpty()) {
             log.debug("caseTypes size {}, adding to query", caseTypes.size());
             QueryBuilder typeQb = QueryBuilders.termsQuery("type", caseTypes);
-            mqb.must(typeQb);
+            mqb.filter(typeQb);
             hasClause = true;
         } else {
             log.debug("caseTypes was null or empty");
@@ -49,7 +58,7 @@ class HocsQueryBuilder {
                 log.debug("dateRange To was null or empty");
             }
             if ((dateRangeDto.getFrom() != null && !dateRangeDto.getFrom().isEmpty()) || (dateRangeDto.getTo() != null && !dateRangeDto.getTo().isEmpty())) {
-                mqb.must(rangeQb);
+                mqb.filter(rangeQb);
                 hasClause = true;
             }
         } else {
@@ -62,9 +71,14 @@ class HocsQueryBuilder {
     HocsQueryBuilder correspondent(String correspondentName) {
         if (correspondentName != null && !correspondentName.isEmpty()) {
             log.debug("CorrespondentName {}, adding to query", correspondentName);
-            QueryBuilder fullnameQb = QueryBuilders.matchQuery("currentCorrespondents.fullname", correspondentName).operator(Operator.AND);
-            QueryBuilder correspondentQb = QueryBuilders.nestedQuery("currentCorrespondents", fullnameQb, ScoreMode.None);
-            mqb.must(correspondentQb);
+            QueryBuilder correspondentQb;
+            if (flattened) {
+                correspondentQb = QueryBuilders.matchPhraseQuery("correspondentNames", correspondentName).slop(FLATTENED_SLOP);
+            } else {
+                QueryBuilder fullnameQb = QueryBuilders.matchQuery("currentCorrespondents.fullname", correspondentName).operator(Operator.AND);
+                correspondentQb = QueryBuilders.nestedQuery("currentCorrespondents", fullnameQb, ScoreMode.None);
+            }
+            mqb.filter(correspondentQb);
             hasClause = true;
         } else {
             log.debug("CorrespondentName was null or empty");
@@ -76,9 +90,14 @@ class HocsQueryBuilder {
     HocsQueryBuilder topic(String topicName) {
         if (topicName != null && !topicName.isEmpty()) {
             log.debug("TopicName {}, adding to query", topicName);
-            QueryBuilder topicTextQb = QueryBuilders.matchQuery("currentTopics.text", topicName).operator(Operator.AND);
-            QueryBuilder topicQb = QueryBuilders.nestedQuery("currentTopics", topicTextQb, ScoreMode.None);
-            mqb.must(topicQb);
+            QueryBuilder topicQb;
+            if (flattened) {
+                topicQb = QueryBuilders.matchPhraseQuery("topicTexts", topicName).slop(FLATTENED_SLOP);
+            } else {
+                QueryBuilder topicTextQb = QueryBuilders.matchQuery("currentTopics.text", topicName).operator(Operator.AND);
+                topicQb = QueryBuilders.nestedQuery("currentTopics", topicTextQb, ScoreMode.None);
+            }
+            mqb.filter(topicQb);
             hasClause = true;
         } else {
             log.debug("TopicName was null or empty");
@@ -92,7 +111,7 @@ class HocsQueryBuilder {
             Set<QueryBuilder> dataQb = data.entrySet().stream().filter(v -> v.getValue() != null && !v.getValue().isEmpty()).map(v -> QueryBuilders.matchQuery(v.getKey(), v.getValue()).operator(Operator.AND)).collect(Collectors.toSet());
             log.debug("filtered data size {}, adding to query", dataQb.size());
             for (QueryBuilder qb : dataQb) {
-                mqb.must(qb);
+                mqb.filter(qb);
                 hasClause = true;
             }
         } else {
@@ -104,8 +123,8 @@ class HocsQueryBuilder {
     HocsQueryBuilder activeOnlyFlag(Boolean activeOnly) {
         if (activeOnly != null && activeOnly) {
             log.debug("activeOnly is true size, adding to query");
-            QueryBuilder activeQb = QueryBuilders.matchQuery("completed", false).operator(Operator.AND);
-            mqb.must(activeQb);
+            QueryBuilder activeQb = QueryBuilders.termQuery("completed", false);
+            mqb.filter(activeQb);
             hasClause = true;
         } else {
             log.debug("activeOnly was null or false");
@@ -114,8 +133,8 @@ class HocsQueryBuilder {
     }
 
     BoolQueryBuilder build() {
-        QueryBuilder deletedQb = QueryBuilders.matchQuery("deleted", false).operator(Operator.AND);
-        this.mqb.must(deletedQb);
+        QueryBuilder deletedQb = QueryBuilders.termQuery("deleted", false);
+        this.mqb.filter(deletedQb);
         return this.mqb;
     }
 
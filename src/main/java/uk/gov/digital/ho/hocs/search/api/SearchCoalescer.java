@@ -0,0 +1,83 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_FAILED;
+
+@Slf4j
+@Component
+public class SearchCoalescer {
+
+    private final ConcurrentMap<SearchRequestKey, CompletableFuture<Set<UUID>>> inFlight = new ConcurrentHashMap<>();
+
+    private final long timeout;
+
+    private final Counter leaderCounter;
+
+    private final Counter coalescedCounter;
+
+    private final Counter timeoutCounter;
+
+    @Autowired
+    public SearchCoalescer(@Value("${search.coalesce.timeout}") long timeout, MeterRegistry meterRegistry) {
+        this.timeout = timeout;
+        this.leaderCounter = meterRegistry.counter("search.coalesce.requests", "role", "leader");
+        this.coalescedCounter = meterRegistry.counter("search.coalesce.requests", "role", "coalesced");
+        this.timeoutCounter = meterRegistry.counter("search.coalesce.timeouts");
+        meterRegistry.gauge("search.coalesce.inflight", inFlight, ConcurrentMap::size);
+    }
+
+    public Set<UUID> execute(SearchRequestKey key, Supplier<Set<UUID>> search) {
+        CompletableFuture<Set<UUID>> flight = new CompletableFuture<>();
+        CompletableFuture<Set<UUID>> existing = inFlight.putIfAbsent(key, flight);
+        if (existing == null) {
+            leaderCounter.increment();
+            try {
+                Set<UUID> caseUUIDs = search.get();
+                flight.complete(caseUUIDs);
+                return caseUUIDs;
+            } catch (RuntimeException e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        coalescedCounter.increment();
+        return await(key, existing);
+    }
+
+    private Set<UUID> await(SearchRequestKey key, CompletableFuture<Set<UUID>> flight) {
+        try {
+            return timeout > 0 ? flight.get(timeout, TimeUnit.MILLISECONDS) : flight.get();
+        } catch (TimeoutException e) {
+            timeoutCounter.increment();
+            throw new ApplicationExceptions.ResourceServerException("Timed out after %dms waiting for search %s", SEARCH_FAILED, timeout, key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApplicationExceptions.ResourceServerException("Interrupted waiting for search %s", SEARCH_FAILED, key);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ApplicationExceptions.ResourceServerException("Search %s failed. %s", SEARCH_FAILED, key, e.getCause());
+        }
+    }
+}
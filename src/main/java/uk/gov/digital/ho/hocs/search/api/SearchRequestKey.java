@@ -0,0 +1,56 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+@EqualsAndHashCode
+@ToString
+public final class SearchRequestKey {
+
+    private final SortedSet<String> caseTypes = new TreeSet<>();
+
+    private final String from;
+
+    private final String to;
+
+    private final String correspondentName;
+
+    private final String topic;
+
+    private final SortedMap<String, String> data = new TreeMap<>();
+
+    private final boolean activeOnly;
+
+    private SearchRequestKey(SearchRequest request) {
+        if (request.getCaseTypes() != null) {
+            this.caseTypes.addAll(request.getCaseTypes());
+        }
+        this.from = request.getDateReceived() == null ? "" : normalise(request.getDateReceived().getFrom());
+        this.to = request.getDateReceived() == null ? "" : normalise(request.getDateReceived().getTo());
+        this.correspondentName = normalise(request.getCorrespondentName());
+        this.topic = normalise(request.getTopic());
+        if (request.getData() != null) {
+            for (Map.Entry<String, String> entry : request.getData().entrySet()) {
+                if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                    this.data.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        this.activeOnly = Boolean.TRUE.equals(request.getActiveOnly());
+    }
+
+    public static SearchRequestKey of(SearchRequest request) {
+        return new SearchRequestKey(request);
+    }
+
+    private static String normalise(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,185 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class SearchResultCache {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 200;
+
+    private static final long UUID_BYTES = 48;
+
+    private final Map<SearchRequestKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Set<SearchRequestKey> revalidating = new HashSet<>();
+
+    private final long maxWeight;
+
+    private final long ttl;
+
+    private final long staleTtl;
+
+    private long weight;
+
+    private final ExecutorService revalidator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-revalidate");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter hitCounter;
+
+    private final Counter staleCounter;
+
+    private final Counter missCounter;
+
+    private final Counter evictionCounter;
+
+    @Autowired
+    public SearchResultCache(@Value("${search.result.cache.maxWeight}") long maxWeight,
+                             @Value("${search.result.cache.ttl}") long ttl,
+                             @Value("${search.result.cache.staleTtl}") long staleTtl,
+                             MeterRegistry meterRegistry) {
+        this.maxWeight = maxWeight;
+        this.ttl = ttl;
+        this.staleTtl = Math.max(ttl, staleTtl);
+        this.hitCounter = meterRegistry.counter("search.result.cache.requests", "result", "hit");
+        this.staleCounter = meterRegistry.counter("search.result.cache.requests", "result", "stale");
+        this.missCounter = meterRegistry.counter("search.result.cache.requests", "result", "miss");
+        this.evictionCounter = meterRegistry.counter("search.result.cache.evictions");
+        meterRegistry.gauge("search.result.cache.size", this, SearchResultCache::size);
+        meterRegistry.gauge("search.result.cache.weight", this, SearchResultCache::weight);
+        meterRegistry.gauge("search.result.cache.bytes", this, SearchResultCache::bytes);
+    }
+
+    public Set<UUID> get(SearchRequestKey key, Supplier<Set<UUID>> loader) {
+        if (maxWeight <= 0) {
+            return loader.get();
+        }
+
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+
+        // Writes are not seen here, other replicas take most of them, so an entry is only ever as fresh as its age
+        if (entry != null) {
+            long age = System.currentTimeMillis() - entry.loadedAt;
+            if (age < ttl) {
+                hitCounter.increment();
+                return entry.caseUUIDs;
+            }
+            if (age < staleTtl) {
+                staleCounter.increment();
+                revalidate(key, loader);
+                return entry.caseUUIDs;
+            }
+        }
+
+        missCounter.increment();
+        return load(key, loader);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized long bytes() {
+        return entries.size() * ENTRY_OVERHEAD_BYTES + weight * UUID_BYTES;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        revalidator.shutdownNow();
+    }
+
+    private Set<UUID> load(SearchRequestKey key, Supplier<Set<UUID>> loader) {
+        long loadedAt = System.currentTimeMillis();
+        Set<UUID> caseUUIDs = Collections.unmodifiableSet(loader.get());
+        put(key, new Entry(caseUUIDs, loadedAt));
+        return caseUUIDs;
+    }
+
+    private void revalidate(SearchRequestKey key, Supplier<Set<UUID>> loader) {
+        synchronized (this) {
+            if (!revalidating.add(key)) {
+                return;
+            }
+        }
+        try {
+            revalidator.execute(() -> {
+                try {
+                    load(key, loader);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to revalidate search {}. {}", key, e.toString());
+                } finally {
+                    synchronized (this) {
+                        revalidating.remove(key);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                revalidating.remove(key);
+            }
+        }
+    }
+
+    private synchronized void put(SearchRequestKey key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            weight -= previous.weight();
+        }
+        weight += entry.weight();
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            weight -= eldest.weight();
+            evictionCounter.increment();
+        }
+    }
+
+    private static class Entry {
+
+        private final Set<UUID> caseUUIDs;
+
+        private final long loadedAt;
+
+        Entry(Set<UUID> caseUUIDs, long loadedAt) {
+            this.caseUUIDs = caseUUIDs;
+            this.loadedAt = loadedAt;
+        }
+
+        long weight() {
+            return 1L + caseUUIDs.size();
+        }
+    }
+}
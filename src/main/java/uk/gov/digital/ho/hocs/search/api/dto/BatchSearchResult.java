@@ -0,0 +1,26 @@
+package uk.gov.digital.ho.hocs.search.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.Set;
+import java.util.UUID;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchSearchResult {
+
+    @JsonProperty("caseUUIDs")
+    private Set<UUID> caseUUIDs;
+
+    @JsonProperty("error")
+    private String error;
+
+}
@@ -0,0 +1,23 @@
+package uk.gov.digital.ho.hocs.search.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.UUID;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@ToString
+public class CorrespondentSuggestion {
+
+    @JsonProperty("fullname")
+    private String fullname;
+
+    @JsonProperty("caseUUID")
+    private UUID caseUUID;
+
+}
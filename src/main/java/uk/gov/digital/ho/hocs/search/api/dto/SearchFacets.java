@@ -0,0 +1,32 @@
+package uk.gov.digital.ho.hocs.search.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.Map;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@ToString
+public class SearchFacets {
+
+    @JsonProperty("total")
+    private long total;
+
+    @JsonProperty("open")
+    private long open;
+
+    @JsonProperty("completed")
+    private long completed;
+
+    @JsonProperty("caseTypes")
+    private Map<String, Long> caseTypes;
+
+    @JsonProperty("dateReceived")
+    private Map<String, Long> dateReceived;
+
+}
@@ -0,0 +1,24 @@
+package uk.gov.digital.ho.hocs.search.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.UUID;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@ToString
+public class SearchPage {
+
+    @JsonProperty("caseUUIDs")
+    private List<UUID> caseUUIDs;
+
+    @JsonProperty("next")
+    private String next;
+
+}
@@ -11,7 +11,20 @@ public enum LogEvent {
     SEARCH_CORRESPONDENT_DELETED,
     SEARCH_TOPIC_ADDED,
     SEARCH_TOPIC_DELETED,
+    SEARCH_BATCH_APPLIED,
+    SEARCH_BATCH_FAILED,
+    REINDEX_STARTED,
+    REINDEX_COMPLETED,
+    REINDEX_FAILED,
+    MIRROR_WRITE_FAILED,
+    TEMPLATE_UPDATED,
+    TEMPLATE_CHECK_FAILED,
+    MAPPING_DRIFT,
+    CASES_TIERED,
+    TIERING_FAILED,
     SEARCH_REQUEST,
+    SEARCH_REQUEST_INVALID,
+    SEARCH_FAILED,
     SEARCH_RESPONSE;
     public static final String EVENT = "event_id";
 }
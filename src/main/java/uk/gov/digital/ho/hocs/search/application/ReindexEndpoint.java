@@ -0,0 +1,31 @@
+package uk.gov.digital.ho.hocs.search.application;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CaseIndexReindexer;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.ReindexProgress;
+
+@Component
+@Endpoint(id = "reindex")
+public class ReindexEndpoint {
+
+    private final CaseIndexReindexer reindexer;
+
+    @Autowired
+    public ReindexEndpoint(CaseIndexReindexer reindexer) {
+        this.reindexer = reindexer;
+    }
+
+    @ReadOperation
+    public ReindexProgress progress() {
+        return reindexer.progress();
+    }
+
+    @WriteOperation
+    public ReindexProgress start() {
+        return reindexer.start();
+    }
+}
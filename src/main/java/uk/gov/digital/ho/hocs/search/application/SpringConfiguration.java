@@ -4,11 +4,17 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import uk.gov.digital.ho.hocs.search.application.queue.AdaptiveConcurrencyLimiter;
+import uk.gov.digital.ho.hocs.search.application.queue.DeduplicationStore;
+import uk.gov.digital.ho.hocs.search.application.queue.StripedExecutor;
 
 import java.text.SimpleDateFormat;
 
@@ -32,6 +38,33 @@ public class SpringConfiguration implements WebMvcConfigurer {
         return m;
     }
 
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(value = "search.queue.batch.enabled", havingValue = "false", matchIfMissing = true)
+    public StripedExecutor caseEventExecutor(@Value("${search.queue.workers}") int workers,
+                                             @Value("${search.queue.workerQueueSize}") int workerQueueSize,
+                                             MeterRegistry meterRegistry) {
+        int stripes = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        return new StripedExecutor("search.ingest", stripes, workerQueueSize, meterRegistry);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter ingestConcurrencyLimiter(@Value("${search.queue.adaptive.enabled}") boolean adaptive,
+                                                               @Value("${search.queue.adaptive.minConcurrency}") int minConcurrency,
+                                                               @Value("${search.queue.adaptive.maxConcurrency}") int maxConcurrency,
+                                                               @Value("${search.queue.adaptive.targetLatency}") long targetLatency,
+                                                               MeterRegistry meterRegistry) {
+        if (!adaptive) {
+            return AdaptiveConcurrencyLimiter.fixed(Integer.MAX_VALUE, meterRegistry);
+        }
+        return new AdaptiveConcurrencyLimiter(minConcurrency, maxConcurrency, targetLatency, meterRegistry);
+    }
+
+    @Bean
+    public DeduplicationStore deduplicationStore(@Value("${search.queue.dedup.window}") int window,
+                                                 MeterRegistry meterRegistry) {
+        return new DeduplicationStore(window, meterRegistry);
+    }
+
     @Bean
     public RestTemplate createRestTemplate() {
         return new RestTemplate();
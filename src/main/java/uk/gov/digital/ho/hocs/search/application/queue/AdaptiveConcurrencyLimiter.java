@@ -0,0 +1,67 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+
+    private int limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, long targetLatencyMillis, MeterRegistry meterRegistry) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.limit = this.minLimit;
+        meterRegistry.gauge("search.ingest.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("search.ingest.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInFlight);
+    }
+
+    public static AdaptiveConcurrencyLimiter fixed(int limit, MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter(limit, limit, Long.MAX_VALUE / 1_000_000, meterRegistry);
+    }
+
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    public synchronized void release(long latencyNanos, boolean succeeded) {
+        boolean saturated = inFlight >= limit;
+        inFlight--;
+        if (!succeeded || latencyNanos > targetLatencyNanos) {
+            int reduced = Math.max(minLimit, Math.min(limit - 1, (int) (limit * BACKOFF_RATIO)));
+            if (reduced != limit) {
+                log.debug("Reducing ingest concurrency from {} to {}", limit, reduced);
+                limit = reduced;
+            }
+        } else if (saturated && limit < maxLimit) {
+            limit++;
+        }
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
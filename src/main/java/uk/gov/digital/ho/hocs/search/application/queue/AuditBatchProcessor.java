@@ -0,0 +1,175 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import uk.gov.digital.ho.hocs.search.api.CaseDataService;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.EVENT;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_BATCH_FAILED;
+
+@Slf4j
+public class AuditBatchProcessor implements Processor {
+
+    private final CaseDataService caseDataService;
+    private final CaseEventHandlers caseEventHandlers;
+    private final ObjectMapper objectMapper;
+    private final SqsBatchAcknowledger acknowledger;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final DeduplicationStore deduplicationStore;
+    private final ProducerTemplate producerTemplate;
+    private final String dlq;
+    private final Counter processedCounter;
+    private final Counter ignoredCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final DistributionSummary batchSize;
+    private final Timer batchTimer;
+
+    public AuditBatchProcessor(CaseDataService caseDataService,
+                               CaseEventHandlers caseEventHandlers,
+                               ObjectMapper objectMapper,
+                               SqsBatchAcknowledger acknowledger,
+                               AdaptiveConcurrencyLimiter concurrencyLimiter,
+                               DeduplicationStore deduplicationStore,
+                               ProducerTemplate producerTemplate,
+                               String dlq,
+                               MeterRegistry meterRegistry) {
+        this.caseDataService = caseDataService;
+        this.caseEventHandlers = caseEventHandlers;
+        this.objectMapper = objectMapper;
+        this.acknowledger = acknowledger;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.deduplicationStore = deduplicationStore;
+        this.producerTemplate = producerTemplate;
+        this.dlq = dlq;
+        this.processedCounter = meterRegistry.counter("search.ingest.events", "mode", "batch", "outcome", "processed");
+        this.ignoredCounter = meterRegistry.counter("search.ingest.events", "mode", "batch", "outcome", "ignored");
+        this.failedCounter = meterRegistry.counter("search.ingest.events", "mode", "batch", "outcome", "failed");
+        this.retriedCounter = meterRegistry.counter("search.ingest.events", "mode", "batch", "outcome", "retried");
+        this.batchSize = meterRegistry.summary("search.ingest.batch.size");
+        this.batchTimer = meterRegistry.timer("search.ingest.batch.duration");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void process(Exchange exchange) {
+        List<AuditMessage> messages = exchange.getIn().getBody(List.class);
+        batchSize.record(messages.size());
+        batchTimer.record(() -> processBatch(messages));
+    }
+
+    private void processBatch(List<AuditMessage> messages) {
+        Map<UUID, List<Consumer<CaseData>>> mutations = new LinkedHashMap<>();
+        Map<UUID, List<AuditMessage>> messagesByCase = new HashMap<>();
+        List<AuditMessage> ignored = new ArrayList<>();
+        List<AuditMessage> failed = new ArrayList<>();
+
+        for (AuditMessage message : messages) {
+            if (message.getType() != null && !caseEventHandlers.supports(message.getType())
+                    || deduplicationStore.isDuplicate(message.getMessageId())) {
+                ignored.add(message);
+                continue;
+            }
+            try {
+                CreateAuditDto audit = objectMapper.readValue(message.getBody(), CreateAuditDto.class);
+                Consumer<CaseData> mutation = toMutation(audit);
+                if (mutation == null) {
+                    log.debug("Ignoring Message {}", audit.getType());
+                    ignored.add(message);
+                } else {
+                    mutations.computeIfAbsent(audit.getCaseUUID(), k -> new ArrayList<>()).add(mutation);
+                    messagesByCase.computeIfAbsent(audit.getCaseUUID(), k -> new ArrayList<>()).add(message);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("Failed to read audit message. {}", e.toString(), value(EVENT, SEARCH_BATCH_FAILED));
+                failed.add(message);
+            }
+        }
+
+        List<AuditMessage> processed = new ArrayList<>();
+        List<AuditMessage> retried = new ArrayList<>();
+        if (!mutations.isEmpty()) {
+            Map<UUID, String> failures = applyAll(mutations);
+            if (failures == null) {
+                messagesByCase.values().forEach(retried::addAll);
+                messagesByCase.clear();
+            }
+            messagesByCase.forEach((caseUUID, caseMessages) -> {
+                if (failures.containsKey(caseUUID)) {
+                    failed.addAll(caseMessages);
+                } else {
+                    caseMessages.forEach(message -> deduplicationStore.record(message.getMessageId()));
+                    processed.addAll(caseMessages);
+                }
+            });
+        }
+
+        failed.forEach(message -> producerTemplate.sendBody(dlq, message.getBody()));
+
+        List<AuditMessage> completed = new ArrayList<>(messages.size());
+        completed.addAll(processed);
+        completed.addAll(ignored);
+        completed.addAll(failed);
+        acknowledger.acknowledge(completed);
+
+        processedCounter.increment(processed.size());
+        ignoredCounter.increment(ignored.size());
+        failedCounter.increment(failed.size());
+        retriedCounter.increment(retried.size());
+        log.info("Processed batch of {}, {} ignored, {} failed, {} left for redelivery", messages.size(), ignored.size(), failed.size(), retried.size());
+    }
+
+    /**
+     * Returns the cases whose writes failed, or null when the whole batch failed for a reason that may not recur
+     * (ES unavailable, interrupted), in which case the messages are left on the queue for SQS to redeliver.
+     */
+    private Map<UUID, String> applyAll(Map<UUID, List<Consumer<CaseData>>> mutations) {
+        try {
+            concurrencyLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        long started = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Map<UUID, String> failures = caseDataService.applyAll(mutations);
+            succeeded = true;
+            return failures;
+        } catch (RuntimeException e) {
+            log.error("Failed to apply batch for {} cases, leaving it for redelivery. {}", mutations.size(), e.toString(), value(EVENT, SEARCH_BATCH_FAILED));
+            return null;
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - started, succeeded);
+        }
+    }
+
+    private Consumer<CaseData> toMutation(CreateAuditDto audit) throws IOException {
+        if (!caseEventHandlers.supports(audit.getType())) {
+            return null;
+        }
+        if (audit.getCaseUUID() == null) {
+            throw new IllegalArgumentException(String.format("Missing caseUUID for %s", audit.getType()));
+        }
+        return caseEventHandlers.mutation(audit.getType(), audit.getData());
+    }
+}
@@ -0,0 +1,47 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@AllArgsConstructor
+@Getter
+public class AuditEventHeader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String type;
+
+    private final UUID caseUUID;
+
+    public static AuditEventHeader peek(String json) throws IOException {
+        String type = null;
+        String caseUUID = null;
+        int found = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected an audit event object");
+            }
+            while (found < 2 && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("type".equals(field)) {
+                    type = parser.getValueAsString();
+                    found++;
+                } else if ("caseUUID".equals(field)) {
+                    caseUUID = parser.getValueAsString();
+                    found++;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new AuditEventHeader(type, caseUUID == null ? null : UUID.fromString(caseUUID));
+    }
+}
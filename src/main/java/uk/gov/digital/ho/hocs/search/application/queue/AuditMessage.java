@@ -0,0 +1,18 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class AuditMessage {
+
+    private String body;
+
+    private String receiptHandle;
+
+    private String messageId;
+
+    private String type;
+
+}
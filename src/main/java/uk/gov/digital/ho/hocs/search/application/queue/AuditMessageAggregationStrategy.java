@@ -0,0 +1,26 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AuditMessageAggregationStrategy implements AggregationStrategy {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
+        AuditMessage message = newExchange.getIn().getBody(AuditMessage.class);
+
+        if (oldExchange == null) {
+            List<AuditMessage> messages = new ArrayList<>();
+            messages.add(message);
+            newExchange.getIn().setBody(messages);
+            return newExchange;
+        }
+
+        oldExchange.getIn().getBody(List.class).add(message);
+        return oldExchange;
+    }
+}
@@ -0,0 +1,15 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface CaseEventHandler {
+
+    void handle(UUID caseUUID, String data) throws IOException;
+
+    Consumer<CaseData> mutation(String data) throws IOException;
+
+}
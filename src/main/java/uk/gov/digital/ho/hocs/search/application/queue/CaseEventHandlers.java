@@ -0,0 +1,145 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.api.CaseDataService;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateCorrespondentRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.Correspondent;
+import uk.gov.digital.ho.hocs.search.domain.model.Topic;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+public class CaseEventHandlers {
+
+    private final Map<EventType, CaseEventHandler> handlers = new EnumMap<>(EventType.class);
+    private final Map<EventType, Timer> timers = new EnumMap<>(EventType.class);
+    private final Map<EventType, Counter> failures = new EnumMap<>(EventType.class);
+
+    @Autowired
+    public CaseEventHandlers(CaseDataService caseDataService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        register(EventType.CASE_CREATED, objectMapper.readerFor(CreateCaseRequest.class),
+                caseDataService::createCase,
+                request -> caseData -> caseData.create(request));
+        register(EventType.CASE_UPDATED, objectMapper.readerFor(UpdateCaseRequest.class),
+                caseDataService::updateCase,
+                request -> caseData -> caseData.update(request));
+        register(EventType.CASE_DELETED, null,
+                (caseUUID, request) -> caseDataService.deleteCase(caseUUID),
+                request -> CaseData::delete);
+        register(EventType.CASE_COMPLETED, null,
+                (caseUUID, request) -> caseDataService.completeCase(caseUUID),
+                request -> CaseData::complete);
+        register(EventType.CORRESPONDENT_CREATED, objectMapper.readerFor(CreateCorrespondentRequest.class),
+                caseDataService::createCorrespondent,
+                request -> {
+                    Correspondent correspondent = Correspondent.from(request);
+                    return caseData -> caseData.addCorrespondent(correspondent);
+                });
+        register(EventType.CORRESPONDENT_DELETED, objectMapper.readerFor(String.class),
+                caseDataService::deleteCorrespondent,
+                (String request) -> {
+                    UUID correspondentUUID = UUID.fromString(request);
+                    return caseData -> caseData.removeCorrespondent(correspondentUUID);
+                });
+        register(EventType.CASE_TOPIC_CREATED, objectMapper.readerFor(CreateTopicRequest.class),
+                caseDataService::createTopic,
+                request -> {
+                    Topic topic = Topic.from(request);
+                    return caseData -> caseData.addTopic(topic);
+                });
+        register(EventType.CASE_TOPIC_DELETED, objectMapper.readerFor(String.class),
+                caseDataService::deleteTopic,
+                (String request) -> {
+                    UUID topicUUID = UUID.fromString(request);
+                    return caseData -> caseData.removeTopic(topicUUID);
+                });
+
+        for (EventType eventType : EventType.values()) {
+            timers.put(eventType, meterRegistry.timer("search.ingest.handler.duration", "type", eventType.name()));
+            failures.put(eventType, meterRegistry.counter("search.ingest.handler.failures", "type", eventType.name()));
+        }
+    }
+
+    public boolean supports(String type) {
+        EventType eventType = EventType.from(type);
+        return eventType != null && handlers.containsKey(eventType);
+    }
+
+    public void handle(String type, UUID caseUUID, String data) throws IOException {
+        EventType eventType = EventType.from(type);
+        CaseEventHandler handler = eventType == null ? null : handlers.get(eventType);
+        if (handler == null) {
+            log.debug("Ignoring Message {}", type);
+            return;
+        }
+
+        long started = System.nanoTime();
+        try {
+            handler.handle(caseUUID, data);
+        } catch (IOException | RuntimeException e) {
+            failures.get(eventType).increment();
+            throw e;
+        } finally {
+            timers.get(eventType).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public Consumer<CaseData> mutation(String type, String data) throws IOException {
+        EventType eventType = EventType.from(type);
+        CaseEventHandler handler = eventType == null ? null : handlers.get(eventType);
+        return handler == null ? null : handler.mutation(data);
+    }
+
+    private <T> void register(EventType eventType,
+                              ObjectReader reader,
+                              BiConsumer<UUID, T> action,
+                              Function<T, Consumer<CaseData>> mutation) {
+        handlers.put(eventType, new PayloadHandler<>(reader, action, mutation));
+    }
+
+    private static final class PayloadHandler<T> implements CaseEventHandler {
+
+        private final ObjectReader reader;
+        private final BiConsumer<UUID, T> action;
+        private final Function<T, Consumer<CaseData>> mutation;
+
+        private PayloadHandler(ObjectReader reader, BiConsumer<UUID, T> action, Function<T, Consumer<CaseData>> mutation) {
+            this.reader = reader;
+            this.action = action;
+            this.mutation = mutation;
+        }
+
+        @Override
+        public void handle(UUID caseUUID, String data) throws IOException {
+            action.accept(caseUUID, read(data));
+        }
+
+        @Override
+        public Consumer<CaseData> mutation(String data) throws IOException {
+            return mutation.apply(read(data));
+        }
+
+        private T read(String data) throws IOException {
+            return reader == null ? null : reader.readValue(data);
+        }
+    }
+}
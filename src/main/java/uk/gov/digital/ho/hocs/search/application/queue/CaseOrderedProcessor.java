@@ -0,0 +1,100 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.util.AsyncProcessorHelper;
+import org.slf4j.MDC;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class CaseOrderedProcessor implements AsyncProcessor {
+
+    private final StripedExecutor executor;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Processor delegate;
+    private final Timer parseTimer;
+    private final Timer queuedTimer;
+    private final Timer processTimer;
+
+    public CaseOrderedProcessor(StripedExecutor executor, AdaptiveConcurrencyLimiter concurrencyLimiter, Processor delegate, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.delegate = delegate;
+        this.parseTimer = meterRegistry.timer("search.ingest.stage.duration", "stage", "parse");
+        this.queuedTimer = meterRegistry.timer("search.ingest.stage.duration", "stage", "queued");
+        this.processTimer = meterRegistry.timer("search.ingest.stage.duration", "stage", "process");
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        Date created = exchange.getProperty(Exchange.CREATED_TIMESTAMP, Date.class);
+        if (created != null) {
+            parseTimer.record(System.currentTimeMillis() - created.getTime(), TimeUnit.MILLISECONDS);
+        }
+
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        try {
+            concurrencyLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        long queued = System.nanoTime();
+        try {
+            executor.execute(exchange.getProperty("caseUUID"), () -> {
+                queuedTimer.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+                if (context != null) {
+                    MDC.setContextMap(context);
+                }
+                long started = System.nanoTime();
+                boolean succeeded = false;
+                try {
+                    delegate.process(exchange);
+                    succeeded = !failed(exchange);
+                } catch (Exception e) {
+                    exchange.setException(e);
+                } finally {
+                    long elapsed = System.nanoTime() - started;
+                    processTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    concurrencyLimiter.release(elapsed, succeeded);
+                    MDC.clear();
+                    callback.done(false);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            concurrencyLimiter.release();
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        } catch (RejectedExecutionException e) {
+            concurrencyLimiter.release();
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+        return false;
+    }
+
+    // An error handler inside the delegate may already have handled and cleared the exception
+    private static boolean failed(Exchange exchange) {
+        return exchange.getException() != null
+                || exchange.getProperty(Exchange.EXCEPTION_CAUGHT) != null
+                || exchange.getProperty(Exchange.FAILURE_HANDLED, false, Boolean.class);
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        AsyncProcessorHelper.process(this, exchange);
+    }
+}
@@ -0,0 +1,43 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DeduplicationStore {
+
+    private final Map<String, Boolean> window;
+
+    private final Counter duplicateCounter;
+
+    public DeduplicationStore(int windowSize, MeterRegistry meterRegistry) {
+        this.window = new LinkedHashMap<String, Boolean>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > windowSize;
+            }
+        };
+        this.duplicateCounter = meterRegistry.counter("search.ingest.duplicates");
+        meterRegistry.gauge("search.ingest.dedup.window", this, DeduplicationStore::windowSize);
+    }
+
+    public synchronized boolean isDuplicate(String key) {
+        if (key != null && window.containsKey(key)) {
+            duplicateCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void record(String key) {
+        if (key != null) {
+            window.put(key, Boolean.TRUE);
+        }
+    }
+
+    public synchronized int windowSize() {
+        return window.size();
+    }
+}
@@ -1,5 +1,8 @@
 package uk.gov.digital.ho.hocs.search.application.queue;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum EventType {
     CASE_CREATED,
     CASE_UPDATED,
@@ -8,5 +11,17 @@ public enum EventType {
     CORRESPONDENT_CREATED,
     CORRESPONDENT_DELETED,
     CASE_TOPIC_CREATED,
-    CASE_TOPIC_DELETED
-}
\ No newline at end of file
+    CASE_TOPIC_DELETED;
+
+    private static final Map<String, EventType> BY_NAME = new HashMap<>();
+
+    static {
+        for (EventType eventType : values()) {
+            BY_NAME.put(eventType.name(), eventType);
+        }
+    }
+
+    public static EventType from(String type) {
+        return type == null ? null : BY_NAME.get(type);
+    }
+}
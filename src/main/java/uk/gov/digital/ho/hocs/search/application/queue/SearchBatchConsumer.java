@@ -0,0 +1,112 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.camel.LoggingLevel;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.aws.sqs.SqsConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.api.CaseDataService;
+
+import java.io.IOException;
+
+import static uk.gov.digital.ho.hocs.search.application.RequestData.transferHeadersToMDC;
+
+@Component
+@ConditionalOnProperty(value = "search.queue.batch.enabled", havingValue = "true")
+public class SearchBatchConsumer extends RouteBuilder {
+
+    private final CaseDataService caseDataService;
+    private final CaseEventHandlers caseEventHandlers;
+    private final ObjectMapper objectMapper;
+    private final SqsBatchAcknowledger acknowledger;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final DeduplicationStore deduplicationStore;
+    private final MeterRegistry meterRegistry;
+    private final String searchQueue;
+    private final String dlq;
+    private final int batchSize;
+    private final long batchTimeout;
+    private final int maximumRedeliveries;
+    private final int redeliveryDelay;
+    private final int backOffMultiplier;
+
+    @Autowired
+    public SearchBatchConsumer(CaseDataService caseDataService,
+                               CaseEventHandlers caseEventHandlers,
+                               ObjectMapper objectMapper,
+                               SqsBatchAcknowledger acknowledger,
+                               AdaptiveConcurrencyLimiter concurrencyLimiter,
+                               DeduplicationStore deduplicationStore,
+                               MeterRegistry meterRegistry,
+                               SearchQueueEndpoint searchQueue,
+                               @Value("${search.queue.dlq}") String dlq,
+                               @Value("${search.queue.batch.size}") int batchSize,
+                               @Value("${search.queue.batch.timeout}") long batchTimeout,
+                               @Value("${search.queue.maximumRedeliveries}") int maximumRedeliveries,
+                               @Value("${search.queue.redeliveryDelay}") int redeliveryDelay,
+                               @Value("${search.queue.backOffMultiplier}") int backOffMultiplier) {
+        this.caseDataService = caseDataService;
+        this.caseEventHandlers = caseEventHandlers;
+        this.objectMapper = objectMapper;
+        this.acknowledger = acknowledger;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.deduplicationStore = deduplicationStore;
+        this.meterRegistry = meterRegistry;
+        this.searchQueue = searchQueue.batch(batchSize, batchTimeout);
+        this.dlq = dlq;
+        this.batchSize = batchSize;
+        this.batchTimeout = batchTimeout;
+        this.maximumRedeliveries = maximumRedeliveries;
+        this.redeliveryDelay = redeliveryDelay;
+        this.backOffMultiplier = backOffMultiplier;
+    }
+
+    @Override
+    public void configure() {
+
+        errorHandler(deadLetterChannel(dlq)
+                .loggingLevel(LoggingLevel.ERROR)
+                .log("Failed to add audit after configured back-off. ${body}")
+                .useOriginalMessage()
+                .retryAttemptedLogLevel(LoggingLevel.WARN)
+                .maximumRedeliveries(maximumRedeliveries)
+                .redeliveryDelay(redeliveryDelay)
+                .backOffMultiplier(backOffMultiplier)
+                .asyncDelayedRedelivery()
+                .logRetryStackTrace(true));
+
+        from(searchQueue).routeId("searchBatchRoute")
+                .process(transferHeadersToMDC())
+                .log(LoggingLevel.DEBUG, "Audit message received")
+                .process(createAuditMessage())
+                .aggregate(constant(true), new AuditMessageAggregationStrategy())
+                .completionSize(batchSize)
+                .completionTimeout(batchTimeout)
+                .completionFromBatchConsumer()
+                .process(new AuditBatchProcessor(caseDataService, caseEventHandlers, objectMapper, acknowledger, concurrencyLimiter, deduplicationStore, getContext().createProducerTemplate(), dlq, meterRegistry))
+                .log(LoggingLevel.DEBUG, "Batch processed");
+    }
+
+    private Processor createAuditMessage() {
+        return exchange -> {
+            String body = exchange.getIn().getBody(String.class);
+            exchange.getIn().setBody(new AuditMessage(body,
+                    exchange.getIn().getHeader(SqsConstants.RECEIPT_HANDLE, String.class),
+                    exchange.getIn().getHeader(SqsConstants.MESSAGE_ID, String.class),
+                    peekType(body)));
+        };
+    }
+
+    private static String peekType(String body) {
+        try {
+            return AuditEventHeader.peek(body).getType();
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
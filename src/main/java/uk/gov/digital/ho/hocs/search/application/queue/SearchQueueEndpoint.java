@@ -0,0 +1,66 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class SearchQueueEndpoint {
+
+    private static final int SQS_MAX_MESSAGES_PER_RECEIVE = 10;
+
+    private final String uri;
+    private final int consumers;
+    private final int waitTimeSeconds;
+    private final int maxMessagesPerPoll;
+    private final int visibilityTimeout;
+    private final int visibilityTimeoutPerMessage;
+
+    @Autowired
+    public SearchQueueEndpoint(@Value("${search.queue}") String uri,
+                               @Value("${search.queue.consumers}") int consumers,
+                               @Value("${search.queue.waitTimeSeconds}") int waitTimeSeconds,
+                               @Value("${search.queue.maxMessagesPerPoll}") int maxMessagesPerPoll,
+                               @Value("${search.queue.visibilityTimeout}") int visibilityTimeout,
+                               @Value("${search.queue.visibilityTimeoutPerMessage}") int visibilityTimeoutPerMessage) {
+        this.uri = uri;
+        this.consumers = consumers;
+        this.waitTimeSeconds = waitTimeSeconds;
+        this.maxMessagesPerPoll = maxMessagesPerPoll;
+        this.visibilityTimeout = visibilityTimeout;
+        this.visibilityTimeoutPerMessage = visibilityTimeoutPerMessage;
+    }
+
+    public String single() {
+        int messages = Math.min(maxMessagesPerPoll, SQS_MAX_MESSAGES_PER_RECEIVE);
+        return consumerUri(messages, visibilityTimeout + visibilityTimeoutPerMessage * messages, true);
+    }
+
+    public String batch(int batchSize, long batchTimeout) {
+        int messages = Math.min(batchSize, SQS_MAX_MESSAGES_PER_RECEIVE);
+        int timeout = visibilityTimeout + visibilityTimeoutPerMessage * messages + (int) Math.ceil(batchTimeout / 1000.0);
+        return consumerUri(messages, timeout, false);
+    }
+
+    private String consumerUri(int messages, int timeout, boolean deleteAfterRead) {
+        StringBuilder consumerUri = new StringBuilder(uri);
+        if (uri.startsWith("aws-sqs:")) {
+            option(consumerUri, "concurrentConsumers", consumers);
+            option(consumerUri, "waitTimeSeconds", waitTimeSeconds);
+            option(consumerUri, "maxMessagesPerPoll", messages);
+            option(consumerUri, "visibilityTimeout", timeout);
+            option(consumerUri, "extendMessageVisibility", true);
+            option(consumerUri, "deleteAfterRead", deleteAfterRead);
+        } else if (uri.startsWith("seda:")) {
+            option(consumerUri, "concurrentConsumers", consumers);
+        }
+        log.info("Consuming from {}", consumerUri);
+        return consumerUri.toString();
+    }
+
+    private static void option(StringBuilder uri, String name, Object value) {
+        uri.append(uri.indexOf("?") < 0 ? '?' : '&').append(name).append('=').append(value);
+    }
+}
@@ -0,0 +1,60 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class SqsBatchAcknowledger {
+
+    private static final int MAX_ENTRIES_PER_REQUEST = 10;
+
+    private final AmazonSQS sqsClient;
+
+    private final String queueName;
+
+    private volatile String queueUrl;
+
+    @Autowired
+    public SqsBatchAcknowledger(ObjectProvider<AmazonSQS> sqsClient, @Value("${search.queue.name}") String queueName) {
+        this.sqsClient = sqsClient.getIfAvailable();
+        this.queueName = queueName;
+    }
+
+    public void acknowledge(List<AuditMessage> messages) {
+        List<String> receiptHandles = messages.stream().map(AuditMessage::getReceiptHandle).filter(Objects::nonNull).collect(Collectors.toList());
+        if (sqsClient == null || receiptHandles.isEmpty()) {
+            return;
+        }
+
+        for (int from = 0; from < receiptHandles.size(); from += MAX_ENTRIES_PER_REQUEST) {
+            List<String> chunk = receiptHandles.subList(from, Math.min(from + MAX_ENTRIES_PER_REQUEST, receiptHandles.size()));
+            List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                entries.add(new DeleteMessageBatchRequestEntry(String.valueOf(i), chunk.get(i)));
+            }
+
+            DeleteMessageBatchResult result = sqsClient.deleteMessageBatch(new DeleteMessageBatchRequest(getQueueUrl(), entries));
+            result.getFailed().forEach(failure -> log.warn("Failed to delete message {}. {}", failure.getId(), failure.getMessage()));
+        }
+    }
+
+    private String getQueueUrl() {
+        if (queueUrl == null) {
+            queueUrl = sqsClient.getQueueUrl(queueName).getQueueUrl();
+        }
+        return queueUrl;
+    }
+}
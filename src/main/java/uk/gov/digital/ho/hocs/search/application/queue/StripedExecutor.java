@@ -0,0 +1,93 @@
+package uk.gov.digital.ho.hocs.search.application.queue;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class StripedExecutor {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30000;
+
+    private final String name;
+
+    private final List<BlockingQueue<Runnable>> queues;
+
+    private final List<Thread> workers;
+
+    private volatile boolean running = true;
+
+    public StripedExecutor(String name, int stripes, int queueCapacity, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.queues = new ArrayList<>(stripes);
+        this.workers = new ArrayList<>(stripes);
+
+        for (int i = 0; i < stripes; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Gauge.builder(name + ".queue.depth", queue, BlockingQueue::size).tag("stripe", String.valueOf(i)).register(meterRegistry);
+
+            Thread worker = new Thread(() -> drain(queue), name + "-" + i);
+            worker.setDaemon(true);
+            worker.start();
+
+            queues.add(queue);
+            workers.add(worker);
+        }
+        log.info("Started {} {} workers with queue capacity {}", stripes, name, queueCapacity);
+    }
+
+    public void execute(Object key, Runnable task) throws InterruptedException {
+        if (!running) {
+            throw new RejectedExecutionException(String.format("%s is shutting down", name));
+        }
+        queues.get(stripe(key)).put(task);
+    }
+
+    public int getStripes() {
+        return queues.size();
+    }
+
+    public void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        log.info("Stopped {} workers", name);
+    }
+
+    private int stripe(Object key) {
+        int hash = Objects.hashCode(key);
+        return Math.floorMod(hash ^ (hash >>> 16), queues.size());
+    }
+
+    private void drain(BlockingQueue<Runnable> queue) {
+        while (running || !queue.isEmpty()) {
+            try {
+                Runnable task = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    task.run();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("{} task failed. {}", name, e.toString());
+            }
+        }
+    }
+}
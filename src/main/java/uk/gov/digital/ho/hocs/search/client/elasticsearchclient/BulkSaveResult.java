@@ -0,0 +1,18 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@AllArgsConstructor
+@Getter
+public class BulkSaveResult {
+
+    private Set<UUID> conflicts;
+
+    private Map<UUID, String> failures;
+
+}
@@ -0,0 +1,103 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
+@Component
+public class CaseDataCache {
+
+    private final Map<UUID, CaseData> cases = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxWeight;
+
+    private long weight;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Counter evictionCounter;
+
+    @Autowired
+    public CaseDataCache(@Value("${search.cache.maxWeight}") long maxWeight, MeterRegistry meterRegistry) {
+        this.maxWeight = maxWeight;
+        this.hitCounter = meterRegistry.counter("search.case.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("search.case.cache.requests", "result", "miss");
+        this.evictionCounter = meterRegistry.counter("search.case.cache.evictions");
+        meterRegistry.gauge("search.case.cache.size", this, CaseDataCache::size);
+        meterRegistry.gauge("search.case.cache.weight", this, CaseDataCache::weight);
+    }
+
+    public synchronized Map<UUID, CaseData> getAll(Collection<UUID> uuids) {
+        Map<UUID, CaseData> found = new HashMap<>();
+        for (UUID uuid : uuids) {
+            CaseData caseData = cases.get(uuid);
+            if (caseData != null) {
+                found.put(uuid, caseData.copy());
+            }
+        }
+        hitCounter.increment(found.size());
+        missCounter.increment(uuids.size() - found.size());
+        return found;
+    }
+
+    public synchronized void put(CaseData caseData) {
+        if (caseData.getSeqNo() == null || maxWeight <= 0) {
+            return;
+        }
+        CaseData previous = cases.put(caseData.getCaseUUID(), caseData.copy());
+        if (previous != null) {
+            weight -= weigh(previous);
+        }
+        weight += weigh(caseData);
+        evict();
+    }
+
+    public synchronized void invalidate(UUID uuid) {
+        CaseData previous = cases.remove(uuid);
+        if (previous != null) {
+            weight -= weigh(previous);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        cases.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return cases.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    private void evict() {
+        Iterator<CaseData> iterator = cases.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            CaseData eldest = iterator.next();
+            iterator.remove();
+            weight -= weigh(eldest);
+            evictionCounter.increment();
+            log.debug("Evicted case {}", eldest.getCaseUUID());
+        }
+    }
+
+    private static long weigh(CaseData caseData) {
+        return 1L + caseData.getAllCorrespondents().size() + caseData.getAllTopics().size();
+    }
+}
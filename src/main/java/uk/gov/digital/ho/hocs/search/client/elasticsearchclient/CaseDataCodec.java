@@ -0,0 +1,69 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+
+@Component
+public class CaseDataCodec {
+
+    private static final String FIELD_FILTER = "caseDataFields";
+
+    private final ObjectReader reader;
+
+    private final ObjectWriter writer;
+
+    private final ObjectMapper filteredMapper;
+
+    @Autowired
+    public CaseDataCodec(ObjectMapper objectMapper) {
+        ObjectMapper mapper = objectMapper.copy().disable(SerializationFeature.INDENT_OUTPUT);
+        this.reader = mapper.readerFor(CaseData.class);
+        this.writer = mapper.writerFor(CaseData.class);
+        this.filteredMapper = mapper.copy().addMixIn(CaseData.class, FilteredCaseData.class);
+    }
+
+    public CaseData read(BytesReference source) {
+        BytesRef bytes = source.toBytesRef();
+        try {
+            return reader.readValue(bytes.bytes, bytes.offset, bytes.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public byte[] write(CaseData caseData) {
+        try {
+            return writer.writeValueAsBytes(caseData);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public byte[] write(CaseData caseData, Set<String> fields) {
+        SimpleFilterProvider filters = new SimpleFilterProvider().addFilter(FIELD_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields));
+        try {
+            return filteredMapper.writer(filters).writeValueAsBytes(caseData);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @JsonFilter(FIELD_FILTER)
+    private interface FilteredCaseData {
+    }
+}
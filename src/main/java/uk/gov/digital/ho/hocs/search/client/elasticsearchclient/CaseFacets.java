@@ -0,0 +1,22 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+@AllArgsConstructor
+@Getter
+public class CaseFacets {
+
+    private long total;
+
+    private long open;
+
+    private long completed;
+
+    private Map<String, Long> caseTypes;
+
+    private Map<String, Long> dateReceived;
+
+}
@@ -0,0 +1,119 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class CaseIndexMirror {
+
+    private final RestHighLevelClient client;
+
+    private final String alias;
+
+    private final long pollInterval;
+
+    private volatile String target;
+
+    private volatile String published;
+
+    private volatile long polledAt;
+
+    private final AtomicLong mirrored = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    @Autowired
+    public CaseIndexMirror(RestHighLevelClient client,
+                           @Value("${elastic.index.prefix}") String prefix,
+                           @Value("${elastic.reindex.mirrorPoll}") long pollInterval) {
+        this.client = client;
+        this.alias = String.format("%s-%s", prefix, "case-mirror");
+        this.pollInterval = pollInterval;
+    }
+
+    // The target of a reindex running on this or, as last polled, any other instance
+    public String getTarget() {
+        String local = target;
+        if (local != null) {
+            return local;
+        }
+        if (System.currentTimeMillis() - polledAt >= pollInterval) {
+            poll();
+        }
+        return published;
+    }
+
+    public boolean isActive() {
+        return getTarget() != null;
+    }
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    void start(String target) throws IOException {
+        this.mirrored.set(0);
+        this.failed.set(0);
+        this.target = target;
+        client.indices().updateAliases(new IndicesAliasesRequest().addAliasAction(AliasActions.add().index(target).alias(alias)), RequestOptions.DEFAULT);
+    }
+
+    void stop() {
+        String stopped = target;
+        target = null;
+        if (stopped == null) {
+            return;
+        }
+        try {
+            client.indices().updateAliases(new IndicesAliasesRequest().addAliasAction(AliasActions.remove().index(stopped).alias(alias)), RequestOptions.DEFAULT);
+        } catch (IOException | ElasticsearchStatusException e) {
+            log.warn("Unable to remove {} from {}, other instances keep mirroring to it until it is removed. {}", alias, stopped, e.toString());
+        }
+    }
+
+    void mirrored(int count) {
+        mirrored.addAndGet(count);
+    }
+
+    void failed(int count) {
+        failed.addAndGet(count);
+    }
+
+    public long getMirrored() {
+        return mirrored.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    private synchronized void poll() {
+        long now = System.currentTimeMillis();
+        if (now - polledAt < pollInterval) {
+            return;
+        }
+        try {
+            GetAliasesRequest request = new GetAliasesRequest(alias);
+            if (client.indices().existsAlias(request, RequestOptions.DEFAULT)) {
+                published = client.indices().getAlias(request, RequestOptions.DEFAULT).getAliases().keySet().stream().findFirst().orElse(null);
+            } else {
+                published = null;
+            }
+            polledAt = now;
+        } catch (IOException | ElasticsearchStatusException e) {
+            log.warn("Unable to check {} for a running reindex. {}", alias, e.toString());
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
+import org.elasticsearch.action.admin.indices.get.GetIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.*;
+
+@Slf4j
+@Component
+public class CaseIndexReindexer {
+
+    private static final String TYPE = "caseData";
+
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(5);
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final RestHighLevelClient client;
+
+    private final CaseIndexMirror mirror;
+
+    private final CaseIndices caseIndices;
+
+    private final CaseDataCache caseDataCache;
+
+    private final String alias;
+
+    private final boolean partitioned;
+
+    private final int slices;
+
+    private final int batchSize;
+
+    private final String refreshInterval;
+
+    private final int replicas;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "case-reindex");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong copied = new AtomicLong();
+
+    private volatile ReindexProgress.State state = ReindexProgress.State.IDLE;
+
+    private volatile String source;
+
+    private volatile String target;
+
+    private volatile long total;
+
+    private volatile long started;
+
+    private volatile long finished;
+
+    private volatile String error;
+
+    @Autowired
+    public CaseIndexReindexer(RestHighLevelClient client,
+                              CaseIndexMirror mirror,
+                              CaseIndices caseIndices,
+                              CaseDataCache caseDataCache,
+                              @Value("${elastic.reindex.slices}") int slices,
+                              @Value("${elastic.reindex.batchSize}") int batchSize,
+                              @Value("${elastic.index.refreshInterval}") String refreshInterval,
+                              @Value("${elastic.index.replicas}") int replicas) {
+        this.client = client;
+        this.mirror = mirror;
+        this.caseIndices = caseIndices;
+        this.caseDataCache = caseDataCache;
+        this.alias = caseIndices.getAlias();
+        this.partitioned = caseIndices.isPartitioned();
+        this.slices = Math.max(1, slices);
+        this.batchSize = batchSize;
+        this.refreshInterval = refreshInterval;
+        this.replicas = replicas;
+    }
+
+    public synchronized ReindexProgress start() {
+        if (state == ReindexProgress.State.RUNNING) {
+            return progress();
+        }
+        copied.set(0);
+        total = 0;
+        source = null;
+        error = null;
+        started = System.currentTimeMillis();
+        if (partitioned) {
+            target = null;
+            error = String.format("%s is partitioned; partitions are written in place and are not reindexed", alias);
+            finished = started;
+            state = ReindexProgress.State.FAILED;
+            return progress();
+        }
+        String running = mirror.getTarget();
+        if (running != null) {
+            target = null;
+            error = String.format("A reindex into %s is running on another instance", running);
+            finished = started;
+            state = ReindexProgress.State.FAILED;
+            return progress();
+        }
+        target = String.format("%s-%s", alias, LocalDateTime.now().format(VERSION_FORMAT));
+        finished = 0;
+        state = ReindexProgress.State.RUNNING;
+        executor.submit(this::reindex);
+        return progress();
+    }
+
+    public ReindexProgress progress() {
+        long copiedDocuments = copied.get();
+        long end = finished > 0 ? finished : System.currentTimeMillis();
+        double elapsedSeconds = started > 0 ? Math.max(1, end - started) / 1000.0 : 0;
+        double rate = elapsedSeconds > 0 ? copiedDocuments / elapsedSeconds : 0;
+        Long eta = null;
+        if (state == ReindexProgress.State.RUNNING && rate > 0) {
+            eta = (long) Math.ceil(Math.max(0, total - copiedDocuments) / rate);
+        }
+        return new ReindexProgress(state, source, target, total, copiedDocuments, mirror.getMirrored(), mirror.getFailed(), rate, eta, error);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void reindex() {
+        try {
+            List<String> sources = new ArrayList<>();
+            boolean legacy = resolveSources(sources);
+            source = String.join(",", sources);
+            log.info("Reindexing {} into {}", source, target, value(EVENT, REINDEX_STARTED));
+
+            createIndex();
+            mirror.start(target);
+            // Other instances only mirror once they poll the published target, until then their writes must reach the copy
+            Thread.sleep(2 * mirror.getPollInterval());
+            if (!sources.isEmpty()) {
+                // Writes acknowledged before the mirror started must be visible to the scroll
+                client.indices().refresh(new RefreshRequest(sources.toArray(new String[0])), RequestOptions.DEFAULT);
+                total = count(sources);
+                copy(sources);
+            }
+            client.indices().putSettings(new UpdateSettingsRequest(target).settings(Settings.builder()
+                    .put("index.refresh_interval", refreshInterval)
+                    .put("index.number_of_replicas", replicas)), RequestOptions.DEFAULT);
+            client.indices().refresh(new RefreshRequest(target), RequestOptions.DEFAULT);
+            swapAlias(sources, legacy);
+            // Writes other instances made to the sources just before the swap are still mirrored once acknowledged
+            Thread.sleep(mirror.getPollInterval());
+
+            state = ReindexProgress.State.COMPLETED;
+            log.info("Reindexed {} documents into {}", copied.get(), target, value(EVENT, REINDEX_COMPLETED));
+        } catch (Exception e) {
+            error = e.toString();
+            state = ReindexProgress.State.FAILED;
+            log.error("Reindex into {} failed. {}", target, e.toString(), value(EVENT, REINDEX_FAILED));
+        } finally {
+            mirror.stop();
+            finished = System.currentTimeMillis();
+        }
+    }
+
+    private boolean resolveSources(List<String> sources) throws IOException {
+        GetAliasesRequest aliasesRequest = new GetAliasesRequest(alias);
+        if (client.indices().existsAlias(aliasesRequest, RequestOptions.DEFAULT)) {
+            sources.addAll(client.indices().getAlias(aliasesRequest, RequestOptions.DEFAULT).getAliases().keySet());
+            return false;
+        }
+        if (client.indices().exists(new GetIndexRequest().indices(alias), RequestOptions.DEFAULT)) {
+            sources.add(alias);
+            return true;
+        }
+        return false;
+    }
+
+    private void createIndex() throws IOException {
+        CreateIndexRequest request = new CreateIndexRequest(target).settings(Settings.builder()
+                .put("index.refresh_interval", "-1")
+                .put("index.number_of_replicas", 0));
+        client.indices().create(request, RequestOptions.DEFAULT);
+    }
+
+    private long count(List<String> sources) throws IOException {
+        SearchRequest request = new SearchRequest(sources.toArray(new String[0])).source(new SearchSourceBuilder().size(0));
+        return client.search(request, RequestOptions.DEFAULT).getHits().getTotalHits();
+    }
+
+    private void copy(List<String> sources) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(slices);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int slice = 0; slice < slices; slice++) {
+                int id = slice;
+                futures.add(pool.submit(() -> {
+                    copySlice(sources, id);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void copySlice(List<String> sources, int slice) throws IOException {
+        SearchSourceBuilder searchSource = new SearchSourceBuilder().size(batchSize).version(true).sort("_doc");
+        if (slices > 1) {
+            searchSource.slice(new SliceBuilder(slice, slices));
+        }
+        SearchRequest request = new SearchRequest(sources.toArray(new String[0])).scroll(SCROLL_KEEP_ALIVE).source(searchSource);
+
+        SearchResponse response = client.search(request, RequestOptions.DEFAULT);
+        String scrollId = response.getScrollId();
+        try {
+            while (response.getHits().getHits().length > 0) {
+                bulk(response.getHits().getHits());
+                response = client.scroll(new SearchScrollRequest(scrollId).scroll(SCROLL_KEEP_ALIVE), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } finally {
+            ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+            clearScrollRequest.addScrollId(scrollId);
+            client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+        }
+    }
+
+    private void bulk(SearchHit[] hits) throws IOException {
+        BulkRequest bulkRequest = new BulkRequest();
+        for (SearchHit hit : hits) {
+            bulkRequest.add(new IndexRequest(target, TYPE, hit.getId())
+                    .source(hit.getSourceRef(), XContentType.JSON)
+                    .routing(routing(hit))
+                    .versionType(VersionType.EXTERNAL)
+                    .version(hit.getVersion()));
+        }
+        BulkResponse response = client.bulk(bulkRequest, RequestOptions.DEFAULT);
+        for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed() && item.getFailure().getStatus() != RestStatus.CONFLICT) {
+                throw new ApplicationExceptions.ResourceServerException(String.format("Unable to copy Case: %s. %s", item.getId(), item.getFailureMessage()), REINDEX_FAILED);
+            }
+        }
+        copied.addAndGet(hits.length);
+    }
+
+    private String routing(SearchHit hit) {
+        if (!caseIndices.isRouted()) {
+            return null;
+        }
+        Object type = hit.getSourceAsMap().get("type");
+        return caseIndices.routing(type == null ? null : type.toString());
+    }
+
+    private void swapAlias(List<String> sources, boolean legacy) throws IOException {
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        if (legacy) {
+            request.addAliasAction(AliasActions.removeIndex().index(alias));
+        } else {
+            sources.forEach(index -> request.addAliasAction(AliasActions.remove().index(index).alias(alias)));
+        }
+        request.addAliasAction(AliasActions.add().index(target).alias(alias));
+        client.indices().updateAliases(request, RequestOptions.DEFAULT);
+        // Cached cases carry the old index and its seq_no, which would make every conditional write conflict
+        caseDataCache.invalidateAll();
+        log.info("Alias {} now points to {}", alias, target);
+    }
+}
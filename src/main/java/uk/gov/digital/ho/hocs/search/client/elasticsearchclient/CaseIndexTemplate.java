@@ -0,0 +1,294 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.get.GetIndexRequest;
+import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsRequest;
+import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsResponse;
+import org.elasticsearch.action.admin.indices.template.get.GetIndexTemplatesRequest;
+import org.elasticsearch.action.admin.indices.template.put.PutIndexTemplateRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.cluster.metadata.IndexTemplateMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.rest.RestStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.*;
+
+@Slf4j
+@Component
+public class CaseIndexTemplate {
+
+    static final String TYPE = "caseData";
+
+    private static final String RESOURCE = "elastic/case-template.json";
+
+    private static final List<String> SORT_FIELDS = List.of("dateReceived", "caseUUID");
+
+    private final RestHighLevelClient client;
+
+    private final String index;
+
+    private final boolean partitioned;
+
+    private final String refreshInterval;
+
+    private final int shards;
+
+    private final int replicas;
+
+    private final boolean managed;
+
+    private final boolean sorted;
+
+    private final int version;
+
+    private final Map<String, Object> mapping;
+
+    private final Settings settings;
+
+    private final AtomicInteger driftCount = new AtomicInteger();
+
+    private volatile List<String> drift = Collections.emptyList();
+
+    @Autowired
+    public CaseIndexTemplate(ObjectMapper objectMapper,
+                             RestHighLevelClient client,
+                             MeterRegistry meterRegistry,
+                             CaseIndices caseIndices,
+                             @Value("${elastic.index.refreshInterval}") String refreshInterval,
+                             @Value("${elastic.index.shards}") int shards,
+                             @Value("${elastic.index.replicas}") int replicas,
+                             @Value("${elastic.index.routingPartitionSize}") int routingPartitionSize,
+                             @Value("${elastic.template.managed}") boolean managed,
+                             @Value("${elastic.index.sorted}") boolean sorted,
+                             @Value("${elastic.search.flattened}") boolean flattened) {
+        if (sorted && !flattened) {
+            throw new IllegalArgumentException("elastic.index.sorted requires elastic.search.flattened, sorted indices cannot have nested fields");
+        }
+        boolean routingPartitioned = caseIndices.isRouted() && routingPartitionSize > 1;
+        if (routingPartitioned && routingPartitionSize >= shards) {
+            throw new IllegalArgumentException("elastic.index.routingPartitionSize must be less than elastic.index.shards");
+        }
+        this.client = client;
+        this.index = caseIndices.getAlias();
+        this.partitioned = caseIndices.isPartitioned();
+        this.refreshInterval = refreshInterval;
+        this.shards = shards;
+        this.replicas = replicas;
+        this.managed = managed;
+        this.sorted = sorted;
+
+        Map<String, Object> template = load(objectMapper);
+        this.version = (Integer) template.get("version");
+        this.mapping = child(child(template, "mappings"), TYPE);
+        Settings.Builder settings = Settings.builder().loadFromMap(child(template, "settings"));
+        if (sorted) {
+            unnest(mapping);
+            settings.putList("index.sort.field", SORT_FIELDS)
+                    .putList("index.sort.order", "desc", "asc")
+                    .putList("index.sort.missing", "_last", "_last");
+        }
+        if (routingPartitioned) {
+            // Spreads each case type over several shards so one busy type does not load a single shard
+            settings.put("index.routing_partition_size", routingPartitionSize);
+            mapping.put("_routing", Collections.singletonMap("required", true));
+        }
+        this.settings = settings.build();
+        meterRegistry.gauge("search.index.mapping.drift", driftCount);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Map<String, Object> getMapping() {
+        return mapping;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public List<String> getDrift() {
+        return drift;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verify() {
+        try {
+            if (managed) {
+                ensureTemplate();
+            }
+            checkMapping();
+        } catch (IOException | ElasticsearchException e) {
+            log.warn("Unable to verify index template {}. {}", index, e.toString(), value(EVENT, TEMPLATE_CHECK_FAILED));
+        }
+    }
+
+    private void ensureTemplate() throws IOException {
+        IndexTemplateMetaData current = currentTemplate();
+        if (current != null
+                && Objects.equals(current.version(), version)
+                && refreshInterval.equals(current.settings().get("index.refresh_interval"))
+                && String.valueOf(shards).equals(current.settings().get("index.number_of_shards"))
+                && String.valueOf(replicas).equals(current.settings().get("index.number_of_replicas"))
+                && current.aliases().containsKey(index) == partitioned
+                && Objects.equals(settings.get("index.routing_partition_size"), current.settings().get("index.routing_partition_size"))
+                && current.settings().getAsList("index.sort.field").equals(sorted ? SORT_FIELDS : Collections.emptyList())) {
+            log.info("Index template {} is at version {}", index, version);
+            return;
+        }
+
+        PutIndexTemplateRequest request = new PutIndexTemplateRequest(index)
+                .patterns(Collections.singletonList(index + "*"))
+                .version(version)
+                .settings(Settings.builder()
+                        .put(settings)
+                        .put("index.refresh_interval", refreshInterval)
+                        .put("index.number_of_shards", shards)
+                        .put("index.number_of_replicas", replicas))
+                .mapping(TYPE, mapping);
+        if (partitioned) {
+            request.alias(new Alias(index));
+        }
+        client.indices().putTemplate(request, RequestOptions.DEFAULT);
+        log.info("Updated index template {} from version {} to {}", index, current == null ? null : current.version(), version, value(EVENT, TEMPLATE_UPDATED));
+    }
+
+    private IndexTemplateMetaData currentTemplate() throws IOException {
+        try {
+            List<IndexTemplateMetaData> templates = client.indices().getTemplate(new GetIndexTemplatesRequest(index), RequestOptions.DEFAULT).getIndexTemplates();
+            return templates.isEmpty() ? null : templates.get(0);
+        } catch (ElasticsearchStatusException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private void checkMapping() throws IOException {
+        if (!client.indices().exists(new GetIndexRequest().indices(index), RequestOptions.DEFAULT)) {
+            drift = Collections.emptyList();
+            driftCount.set(0);
+            return;
+        }
+
+        GetMappingsResponse response = client.indices().getMapping(new GetMappingsRequest().indices(index).types(TYPE), RequestOptions.DEFAULT);
+        List<String> differences = new ArrayList<>();
+        response.mappings().forEach(indexMappings -> {
+            MappingMetaData actual = indexMappings.value.get(TYPE);
+            Map<String, Object> source = actual == null ? Collections.emptyMap() : actual.getSourceAsMap();
+            drift(mapping, source).forEach(difference -> differences.add(indexMappings.key + ": " + difference));
+        });
+
+        drift = Collections.unmodifiableList(differences);
+        driftCount.set(differences.size());
+        if (differences.isEmpty()) {
+            log.info("Index {} matches template version {}", index, version);
+        } else {
+            log.warn("Index {} has drifted from template version {}: {}", index, version, differences, value(EVENT, MAPPING_DRIFT));
+        }
+    }
+
+    static List<String> drift(Map<String, Object> expected, Map<String, Object> actual) {
+        List<String> differences = new ArrayList<>();
+        if (!Objects.equals(String.valueOf(expected.get("dynamic")), String.valueOf(actual.get("dynamic")))) {
+            differences.add(String.format("dynamic expected %s but was %s", expected.get("dynamic"), actual.get("dynamic")));
+        }
+
+        Map<String, Map<String, Object>> expectedFields = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> actualFields = new LinkedHashMap<>();
+        flatten("", expected, expectedFields);
+        flatten("", actual, actualFields);
+
+        expectedFields.forEach((path, attributes) -> {
+            Map<String, Object> actualAttributes = actualFields.get(path);
+            if (actualAttributes == null) {
+                differences.add(path + " is missing");
+                return;
+            }
+            attributes.forEach((name, expectedValue) -> {
+                Object actualValue = actualAttributes.get(name);
+                if (!String.valueOf(expectedValue).equals(String.valueOf(actualValue))) {
+                    differences.add(String.format("%s.%s expected %s but was %s", path, name, expectedValue, actualValue));
+                }
+            });
+        });
+        actualFields.keySet().stream()
+                .filter(path -> !expectedFields.containsKey(path))
+                .forEach(path -> differences.add(path + " is not in the template"));
+        return differences;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void flatten(String path, Map<String, Object> mapping, Map<String, Map<String, Object>> fields) {
+        Map<String, Object> properties = (Map<String, Object>) mapping.get("properties");
+        if (properties == null) {
+            return;
+        }
+        properties.forEach((name, value) -> {
+            Map<String, Object> field = (Map<String, Object>) value;
+            String fieldPath = path.isEmpty() ? name : path + "." + name;
+            Map<String, Object> attributes = new LinkedHashMap<>(field);
+            attributes.remove("properties");
+            attributes.remove("fields");
+            fields.put(fieldPath, attributes);
+            flatten(fieldPath, field, fields);
+
+            Map<String, Object> subFields = (Map<String, Object>) field.get("fields");
+            if (subFields != null) {
+                subFields.forEach((subName, subField) -> fields.put(fieldPath + "." + subName, (Map<String, Object>) subField));
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void unnest(Map<String, Object> mapping) {
+        Map<String, Object> properties = (Map<String, Object>) mapping.get("properties");
+        properties.values().forEach(value -> {
+            Map<String, Object> field = (Map<String, Object>) value;
+            if ("nested".equals(field.get("type"))) {
+                field.remove("type");
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> child(Map<String, Object> parent, String name) {
+        return (Map<String, Object>) parent.get(name);
+    }
+
+    private static Map<String, Object> load(ObjectMapper objectMapper) {
+        try (InputStream stream = new ClassPathResource(RESOURCE).getInputStream()) {
+            return objectMapper.readValue(stream, new TypeReference<Map<String, Object>>() {});
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
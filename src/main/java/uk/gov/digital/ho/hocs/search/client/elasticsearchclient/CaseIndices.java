@@ -0,0 +1,301 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class CaseIndices {
+
+    private static final String DATE_RECEIVED = "dateReceived";
+
+    private static final String TYPE = "type";
+
+    private static final String COMPLETED = "completed";
+
+    private static final String UNTYPED = "untyped";
+
+    private static final String UNDATED = "undated";
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private static final long LOOKUP_TTL = 10000;
+
+    private final RestHighLevelClient client;
+
+    private final String alias;
+
+    private final boolean partitioned;
+
+    private final int maxSearchPartitions;
+
+    private final boolean routedWrites;
+
+    private final boolean routedSearches;
+
+    private final boolean tiered;
+
+    private final String coldIndex;
+
+    private final String archiveIndex;
+
+    private final Set<String> partitions = ConcurrentHashMap.newKeySet();
+
+    private volatile long partitionsLoaded;
+
+    private final Set<String> routings = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public CaseIndices(RestHighLevelClient client,
+                       @Value("${elastic.index.prefix}") String prefix,
+                       @Value("${elastic.index.partitioning}") String partitioning,
+                       @Value("${elastic.index.maxSearchPartitions}") int maxSearchPartitions,
+                       @Value("${elastic.index.routing}") String routing,
+                       @Value("${elastic.index.routing.types}") String routingTypes,
+                       @Value("${elastic.tiering.enabled}") boolean tiered) {
+        this.client = client;
+        this.alias = String.format("%s-%s", prefix, "case");
+        this.maxSearchPartitions = maxSearchPartitions;
+        this.tiered = tiered;
+        this.coldIndex = String.format("%s-%s", alias, "cold");
+        this.archiveIndex = String.format("%s-%s", alias, "archive");
+        switch (partitioning) {
+            case "none":
+                this.partitioned = false;
+                break;
+            case "monthly":
+                this.partitioned = true;
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown index partitioning: %s", partitioning));
+        }
+        switch (routing) {
+            case "none":
+                this.routedWrites = false;
+                this.routedSearches = false;
+                break;
+            case "write":
+                this.routedWrites = true;
+                this.routedSearches = false;
+                break;
+            case "type":
+                this.routedWrites = true;
+                this.routedSearches = true;
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown index routing: %s", routing));
+        }
+        if (routedWrites) {
+            Arrays.stream(routingTypes.split(",")).map(String::trim).filter(type -> !type.isEmpty()).forEach(routings::add);
+            if (routings.isEmpty()) {
+                throw new IllegalArgumentException("elastic.index.routing.types must list the case types when routing is enabled");
+            }
+            routings.add(UNTYPED);
+        }
+        log.info("Using index {} with {} partitioning, {} routing and tiering {}", alias, partitioning, routing, tiered ? "enabled" : "disabled");
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    public boolean isRouted() {
+        return routedWrites;
+    }
+
+    public boolean isTiered() {
+        return tiered;
+    }
+
+    public boolean requiresLookup() {
+        return partitioned || routedWrites || tiered;
+    }
+
+    public String getColdIndex() {
+        return coldIndex;
+    }
+
+    public String getArchiveIndex() {
+        return archiveIndex;
+    }
+
+    public String routing(String type) {
+        if (!routedWrites) {
+            return null;
+        }
+        return type == null ? UNTYPED : type;
+    }
+
+    public boolean moved(String fromIndex, String fromRouting, String toIndex, String toRouting) {
+        if (fromIndex == null) {
+            return false;
+        }
+        return (partitioned && !fromIndex.equals(toIndex)) || !Objects.equals(fromRouting, toRouting);
+    }
+
+    public boolean isTierIndex(String index) {
+        return tiered && (coldIndex.equals(index) || archiveIndex.equals(index));
+    }
+
+    public String targetIndex(String currentIndex, LocalDate dateReceived) {
+        return isTierIndex(currentIndex) ? currentIndex : writeIndex(dateReceived);
+    }
+
+    public String writeIndex(LocalDate dateReceived) {
+        if (!partitioned) {
+            return alias;
+        }
+        return dateReceived == null ? partition(UNDATED) : partition(MONTH_FORMAT.format(dateReceived));
+    }
+
+    public String[] searchIndices(QueryBuilder query) {
+        List<String> indices = hotIndices(query);
+        if (tiered && !activeOnly(query) && !(partitioned && indices.contains(alias))) {
+            indices.add(coldIndex);
+        }
+        return indices.toArray(new String[0]);
+    }
+
+    public String searchRouting(QueryBuilder query) {
+        if (routedSearches && query instanceof BoolQueryBuilder) {
+            for (QueryBuilder clause : ((BoolQueryBuilder) query).filter()) {
+                if (clause instanceof TermsQueryBuilder && TYPE.equals(((TermsQueryBuilder) clause).fieldName())) {
+                    return ((TermsQueryBuilder) clause).values().stream().map(String::valueOf).distinct().collect(Collectors.joining(","));
+                }
+            }
+        }
+        return null;
+    }
+
+    List<String> indices() throws IOException {
+        if (!partitioned) {
+            return tiered ? Arrays.asList(alias, coldIndex, archiveIndex) : Collections.singletonList(alias);
+        }
+        if (System.currentTimeMillis() - partitionsLoaded > LOOKUP_TTL) {
+            loadPartitions();
+        }
+        return new ArrayList<>(partitions);
+    }
+
+    boolean reloadIndices() throws IOException {
+        if (!partitioned) {
+            return false;
+        }
+        int known = partitions.size();
+        loadPartitions();
+        return partitions.size() > known;
+    }
+
+    List<String> routings(String type) {
+        List<String> candidates = new ArrayList<>();
+        candidates.add(null);
+        if (!routedWrites) {
+            return candidates;
+        }
+        if (type == null) {
+            candidates.addAll(routings);
+        } else {
+            candidates.add(UNTYPED);
+            candidates.add(type);
+        }
+        return candidates;
+    }
+
+    void written(String index, String routing) {
+        if (partitioned) {
+            partitions.add(index);
+        }
+        if (routing != null) {
+            routings.add(routing);
+        }
+    }
+
+    private void loadPartitions() throws IOException {
+        GetAliasesRequest request = new GetAliasesRequest(alias);
+        if (client.indices().existsAlias(request, RequestOptions.DEFAULT)) {
+            partitions.addAll(client.indices().getAlias(request, RequestOptions.DEFAULT).getAliases().keySet());
+        }
+        partitionsLoaded = System.currentTimeMillis();
+    }
+
+    private List<String> hotIndices(QueryBuilder query) {
+        if (partitioned && query instanceof BoolQueryBuilder) {
+            for (QueryBuilder clause : ((BoolQueryBuilder) query).filter()) {
+                if (clause instanceof RangeQueryBuilder && DATE_RECEIVED.equals(((RangeQueryBuilder) clause).fieldName())) {
+                    RangeQueryBuilder range = (RangeQueryBuilder) clause;
+                    return hotIndices(month(range.from()), month(range.to()));
+                }
+            }
+        }
+        return new ArrayList<>(Collections.singletonList(alias));
+    }
+
+    private List<String> hotIndices(YearMonth from, YearMonth to) {
+        List<String> indices = new ArrayList<>();
+        if (from == null || to == null || to.isBefore(from) || from.until(to, ChronoUnit.MONTHS) >= maxSearchPartitions) {
+            indices.add(alias);
+            return indices;
+        }
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            indices.add(partition(MONTH_FORMAT.format(month)));
+        }
+        return indices;
+    }
+
+    private static boolean activeOnly(QueryBuilder query) {
+        if (query instanceof BoolQueryBuilder) {
+            for (QueryBuilder clause : ((BoolQueryBuilder) query).filter()) {
+                if (clause instanceof TermQueryBuilder && COMPLETED.equals(((TermQueryBuilder) clause).fieldName())
+                        && Boolean.FALSE.equals(((TermQueryBuilder) clause).value())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String partition(String suffix) {
+        return String.format("%s-%s", alias, suffix);
+    }
+
+    private static YearMonth month(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String date = value.toString();
+        try {
+            return YearMonth.from(LocalDate.parse(date.length() > 10 ? date.substring(0, 10) : date));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.elasticsearch.action.get.GetResponse;
+
+@AllArgsConstructor
+@Getter
+class CaseLocation {
+
+    private String index;
+
+    private String routing;
+
+    private GetResponse response;
+
+}
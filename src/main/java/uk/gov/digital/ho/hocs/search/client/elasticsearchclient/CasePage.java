@@ -0,0 +1,17 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.UUID;
+
+@AllArgsConstructor
+@Getter
+public class CasePage {
+
+    private List<UUID> caseUUIDs;
+
+    private Object[] searchAfter;
+
+}
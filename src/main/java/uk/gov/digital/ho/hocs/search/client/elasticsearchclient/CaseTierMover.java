@@ -0,0 +1,294 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.value;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.*;
+
+@Slf4j
+@Component
+public class CaseTierMover {
+
+    private static final String TYPE = "caseData";
+
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(5);
+
+    private final RestHighLevelClient client;
+
+    private final CaseIndices caseIndices;
+
+    private final CaseDataCache caseDataCache;
+
+    private final CaseDataCodec caseDataCodec;
+
+    private final CaseIndexMirror caseIndexMirror;
+
+    private final boolean purgeDeleted;
+
+    private final long interval;
+
+    private final int batchSize;
+
+    private final boolean moverEnabled;
+
+    private final Counter cold;
+
+    private final Counter archived;
+
+    private final Counter purged;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "case-tiering");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public CaseTierMover(RestHighLevelClient client,
+                         CaseIndices caseIndices,
+                         CaseDataCache caseDataCache,
+                         CaseDataCodec caseDataCodec,
+                         CaseIndexMirror caseIndexMirror,
+                         MeterRegistry meterRegistry,
+                         @Value("${elastic.tiering.deleted}") String deleted,
+                         @Value("${elastic.tiering.interval}") long interval,
+                         @Value("${elastic.tiering.batchSize}") int batchSize,
+                         @Value("${elastic.tiering.mover}") boolean moverEnabled) {
+        this.client = client;
+        this.caseIndices = caseIndices;
+        this.caseDataCache = caseDataCache;
+        this.caseDataCodec = caseDataCodec;
+        this.caseIndexMirror = caseIndexMirror;
+        switch (deleted) {
+            case "archive":
+                this.purgeDeleted = false;
+                break;
+            case "purge":
+                this.purgeDeleted = true;
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown deleted case tiering: %s", deleted));
+        }
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.moverEnabled = moverEnabled;
+        this.cold = meterRegistry.counter("search.tiering.moved", "tier", "cold");
+        this.archived = meterRegistry.counter("search.tiering.moved", "tier", "archive");
+        this.purged = meterRegistry.counter("search.tiering.moved", "tier", "purged");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!caseIndices.isTiered()) {
+            return;
+        }
+        if (!moverEnabled) {
+            log.info("Completed and deleted cases are moved by another instance");
+            return;
+        }
+        log.info("Moving completed cases to {} and {} deleted cases every {}ms", caseIndices.getColdIndex(), purgeDeleted ? "purging" : "archiving", interval);
+        executor.scheduleWithFixedDelay(this::run, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void run() {
+        try {
+            long moved = moveAll();
+            if (moved > 0) {
+                log.info("Moved {} completed or deleted cases out of {}", moved, caseIndices.getAlias(), value(EVENT, CASES_TIERED));
+            }
+        } catch (Exception e) {
+            log.warn("Unable to move completed or deleted cases. {}", e.toString(), value(EVENT, TIERING_FAILED));
+        }
+    }
+
+    long moveAll() throws IOException {
+        if (caseIndexMirror.isActive()) {
+            log.debug("Not moving cases while {} is reindexed into {}", caseIndices.getAlias(), caseIndexMirror.getTarget());
+            return 0;
+        }
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+                .should(QueryBuilders.boolQuery()
+                        .filter(QueryBuilders.termQuery("deleted", true))
+                        .mustNot(QueryBuilders.termQuery("_index", caseIndices.getArchiveIndex())))
+                .should(QueryBuilders.boolQuery()
+                        .filter(QueryBuilders.termQuery("completed", true))
+                        .mustNot(QueryBuilders.termsQuery("_index", caseIndices.getColdIndex(), caseIndices.getArchiveIndex())))
+                .minimumShouldMatch(1);
+        SearchSourceBuilder searchSource = new SearchSourceBuilder().query(query).size(batchSize).version(true).sort("_doc");
+        SearchRequest request = new SearchRequest(caseIndices.searchIndices(QueryBuilders.boolQuery()))
+                .scroll(SCROLL_KEEP_ALIVE)
+                .source(searchSource)
+                .indicesOptions(IndicesOptions.lenientExpandOpen());
+
+        long moved = 0;
+        SearchResponse response = client.search(request, RequestOptions.DEFAULT);
+        String scrollId = response.getScrollId();
+        try {
+            while (response.getHits().getHits().length > 0 && !caseIndexMirror.isActive()) {
+                moved += move(response.getHits().getHits());
+                response = client.scroll(new SearchScrollRequest(scrollId).scroll(SCROLL_KEEP_ALIVE), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } finally {
+            if (scrollId != null) {
+                ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+                clearScrollRequest.addScrollId(scrollId);
+                client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+            }
+        }
+        return moved;
+    }
+
+    private int move(SearchHit[] hits) throws IOException {
+        Map<String, SearchHit> pending = new LinkedHashMap<>();
+        BulkRequest copyRequest = new BulkRequest();
+        for (SearchHit hit : hits) {
+            pending.put(hit.getId(), hit);
+            // The hot version keeps a copy left by an earlier run from being overwritten by an older one
+            IndexRequest copy = new IndexRequest(tierIndex(hit), TYPE, hit.getId())
+                    .routing(routing(hit))
+                    .versionType(VersionType.EXTERNAL)
+                    .version(hit.getVersion());
+            if (isDeleted(hit) && purgeDeleted) {
+                copy.source(tombstone(hit), XContentType.JSON);
+            } else {
+                copy.source(hit.getSourceRef(), XContentType.JSON);
+            }
+            copyRequest.add(copy);
+        }
+
+        for (BulkItemResponse item : client.bulk(copyRequest, RequestOptions.DEFAULT).getItems()) {
+            // A conflict is a copy an earlier run made before failing to remove the hot case
+            if (item.isFailed() && item.getFailure().getStatus() != RestStatus.CONFLICT) {
+                log.warn("Failed to copy case {} to {}. {}", item.getId(), item.getIndex(), item.getFailureMessage(), value(EVENT, TIERING_FAILED));
+                pending.remove(item.getId());
+            }
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        if (caseIndexMirror.isActive()) {
+            // A reindex that started meanwhile may copy the hot cases, removing them now would leave them in its target too
+            BulkRequest revertRequest = new BulkRequest();
+            pending.values().forEach(hit -> revertRequest.add(copyDeleteRequest(hit)));
+            revert(revertRequest);
+            return 0;
+        }
+
+        BulkRequest deleteRequest = new BulkRequest();
+        pending.values().forEach(hit -> deleteRequest.add(new DeleteRequest(hit.getIndex(), TYPE, hit.getId())
+                .routing(routing(hit))
+                .version(hit.getVersion())));
+        BulkResponse response = client.bulk(deleteRequest, RequestOptions.DEFAULT);
+
+        int moved = 0;
+        BulkRequest revertRequest = new BulkRequest();
+        for (BulkItemResponse item : response.getItems()) {
+            caseDataCache.invalidate(UUID.fromString(item.getId()));
+            SearchHit hit = pending.get(item.getId());
+            if (item.isFailed()) {
+                if (item.getFailure().getStatus() == RestStatus.CONFLICT) {
+                    log.debug("Case {} changed while being moved, leaving it for the next run", item.getId());
+                } else {
+                    log.warn("Failed to remove moved case {} from {}. {}", item.getId(), item.getIndex(), item.getFailureMessage(), value(EVENT, TIERING_FAILED));
+                }
+                // The hot case is still the current one, its copy would be found alongside it
+                revertRequest.add(copyDeleteRequest(hit));
+                continue;
+            }
+            moved++;
+            if (!isDeleted(hit)) {
+                cold.increment();
+            } else if (purgeDeleted) {
+                purged.increment();
+            } else {
+                archived.increment();
+            }
+        }
+        revert(revertRequest);
+        return moved;
+    }
+
+    private void revert(BulkRequest revertRequest) throws IOException {
+        if (revertRequest.numberOfActions() == 0) {
+            return;
+        }
+        for (BulkItemResponse item : client.bulk(revertRequest, RequestOptions.DEFAULT).getItems()) {
+            if (item.isFailed() && item.getFailure().getStatus() != RestStatus.NOT_FOUND) {
+                // The next run copies the hot case again over this one
+                log.warn("Failed to remove the copy of case {} from {}. {}", item.getId(), item.getIndex(), item.getFailureMessage(), value(EVENT, TIERING_FAILED));
+            }
+        }
+    }
+
+    private DeleteRequest copyDeleteRequest(SearchHit hit) {
+        return new DeleteRequest(tierIndex(hit), TYPE, hit.getId())
+                .routing(routing(hit))
+                .version(hit.getVersion());
+    }
+
+    // Purged cases leave a deleted stub in the archive, so events that arrive late update it rather than recreate the case
+    private byte[] tombstone(SearchHit hit) {
+        CaseData tombstone = new CaseData(UUID.fromString(hit.getId()));
+        Object type = hit.getSourceAsMap().get("type");
+        tombstone.setType(type == null ? null : type.toString());
+        tombstone.delete();
+        return caseDataCodec.write(tombstone);
+    }
+
+    private String tierIndex(SearchHit hit) {
+        return isDeleted(hit) ? caseIndices.getArchiveIndex() : caseIndices.getColdIndex();
+    }
+
+    private static boolean isDeleted(SearchHit hit) {
+        return Boolean.TRUE.equals(hit.getSourceAsMap().get("deleted"));
+    }
+
+    private static String routing(SearchHit hit) {
+        DocumentField routing = hit.field("_routing");
+        return routing == null ? null : routing.getValue();
+    }
+}
@@ -0,0 +1,16 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@AllArgsConstructor
+@Getter
+public class CorrespondentMatch {
+
+    private String fullname;
+
+    private UUID caseUUID;
+
+}
@@ -0,0 +1,44 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public final class CorrespondentNames {
+
+    // Also the pattern of the name_tokens tokenizer in elastic/case-template.json, so both sides split names the same way
+    static final String SEPARATOR_PATTERN = "[^\\p{L}\\p{N}]+";
+
+    private static final Pattern SEPARATOR = Pattern.compile(SEPARATOR_PATTERN);
+
+    private CorrespondentNames() {
+    }
+
+    public static List<String> tokens(String name) {
+        return Arrays.stream(SEPARATOR.split(name.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    public static boolean matches(List<String> prefixTokens, String fullname) {
+        List<String> remaining = new ArrayList<>(tokens(fullname));
+        for (String prefix : prefixTokens) {
+            Iterator<String> iterator = remaining.iterator();
+            boolean matched = false;
+            while (!matched && iterator.hasNext()) {
+                if (iterator.next().startsWith(prefix)) {
+                    iterator.remove();
+                    matched = true;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
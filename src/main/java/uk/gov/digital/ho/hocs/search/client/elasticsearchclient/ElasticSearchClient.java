@@ -3,17 +3,50 @@ package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.get.GetResult;
 import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.filter.Filters;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregator;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.retry.annotation.Backoff;
@@ -21,34 +54,96 @@ import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
 import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
 import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.Correspondent;
+import uk.gov.digital.ho.hocs.search.domain.model.Topic;
 
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static net.logstash.logback.argument.StructuredArguments.value;
 import static uk.gov.digital.ho.hocs.search.application.LogEvent.*;
 
 @Slf4j
 @Component
 public class ElasticSearchClient {
 
+    private static final int RETRY_ON_CONFLICT = 3;
+
+    private static final int MAX_LOCATE_ATTEMPTS = 3;
+
+    private static final String CREATE_SCRIPT =
+            "for (def field : params.fields.entrySet()) { ctx._source.putIfAbsent(field.getKey(), field.getValue()); }";
+
+    private static final String ADD_CORRESPONDENT_SCRIPT =
+            "if (ctx._source.removedCorrespondents == null) { ctx._source.removedCorrespondents = []; } "
+                    + "def uuid = params.correspondent.uuid; "
+                    + "ctx._source.allCorrespondents.removeIf(c -> c.uuid == uuid); "
+                    + "ctx._source.allCorrespondents.add(params.correspondent); "
+                    + "ctx._source.currentCorrespondents.removeIf(c -> c.uuid == uuid); "
+                    + "if (!ctx._source.removedCorrespondents.contains(uuid)) { ctx._source.currentCorrespondents.add(params.correspondent); }";
+
+    private static final String REMOVE_CORRESPONDENT_SCRIPT =
+            "if (ctx._source.removedCorrespondents == null) { ctx._source.removedCorrespondents = []; } "
+                    + "def uuid = params.uuid; "
+                    + "ctx._source.currentCorrespondents.removeIf(c -> c.uuid == uuid); "
+                    + "if (!ctx._source.removedCorrespondents.contains(uuid)) { ctx._source.removedCorrespondents.add(uuid); }";
+
+    private static final String ADD_TOPIC_SCRIPT =
+            "if (ctx._source.removedTopics == null) { ctx._source.removedTopics = []; } "
+                    + "def uuid = params.topic.uuid; "
+                    + "ctx._source.allTopics.removeIf(t -> t.uuid == uuid); "
+                    + "ctx._source.allTopics.add(params.topic); "
+                    + "ctx._source.currentTopics.removeIf(t -> t.uuid == uuid); "
+                    + "if (!ctx._source.removedTopics.contains(uuid)) { ctx._source.currentTopics.add(params.topic); }";
+
+    private static final String REMOVE_TOPIC_SCRIPT =
+            "if (ctx._source.removedTopics == null) { ctx._source.removedTopics = []; } "
+                    + "def uuid = params.uuid; "
+                    + "ctx._source.currentTopics.removeIf(t -> t.uuid == uuid); "
+                    + "if (!ctx._source.removedTopics.contains(uuid)) { ctx._source.removedTopics.add(uuid); }";
+
     private final ObjectMapper objectMapper;
 
     private final RestHighLevelClient client;
 
+    private final CaseDataCodec caseDataCodec;
+
+    private final CaseDataCache caseDataCache;
+
+    private final CaseIndexMirror caseIndexMirror;
+
+    private final CaseIndices caseIndices;
+
     private final String index;
 
+    private final boolean sorted;
+
     @Autowired
-    public ElasticSearchClient(ObjectMapper objectMapper, RestHighLevelClient client, @Value("${elastic.index.prefix}") String prefix) {
+    public ElasticSearchClient(ObjectMapper objectMapper, RestHighLevelClient client, CaseDataCodec caseDataCodec, CaseDataCache caseDataCache, CaseIndexMirror caseIndexMirror, CaseIndices caseIndices,
+                               @Value("${elastic.index.sorted}") boolean sorted) {
         this.objectMapper = objectMapper;
         this.client = client;
-        this.index = String.format("%s-%s", prefix, "case");
-        log.info("Using index {}", index);
+        this.caseDataCodec = caseDataCodec;
+        this.caseDataCache = caseDataCache;
+        this.caseIndexMirror = caseIndexMirror;
+        this.caseIndices = caseIndices;
+        this.index = caseIndices.getAlias();
+        this.sorted = sorted;
     }
 
     @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
     public CaseData findById(UUID uuid) {
 
+        CaseData cached = caseDataCache.getAll(Collections.singleton(uuid)).get(uuid);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (caseIndices.requiresLookup()) {
+            return findAllById(Collections.singleton(uuid)).get(uuid);
+        }
+
         GetRequest getRequest = new GetRequest(index, "caseData", uuid.toString());
 
         GetResponse getResponse = null;
@@ -57,84 +152,638 @@ public class ElasticSearchClient {
         } catch (IOException e) {
             throw new ApplicationExceptions.EntityNotFoundException(String.format("Unable to find Case: %s. %s", uuid, e.toString()), CASE_NOT_FOUND);
         }
-        Map<String, Object> resultMap = getResponse.getSource();
 
-        if (resultMap == null) {
+        if (getResponse.isSourceEmpty()) {
             log.debug("Not found case {}, creating...", uuid);
             return new CaseData(uuid);
         } else {
             log.debug("Found case {}", uuid);
-            return objectMapper.convertValue(resultMap, CaseData.class);
+            return read(getResponse, null);
         }
     }
 
     @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
-    public void save(CaseData caseData) {
+    public Map<UUID, CaseData> findAllById(Collection<UUID> uuids) {
+
+        Map<UUID, CaseData> cases = caseDataCache.getAll(uuids);
+        if (cases.size() == uuids.size()) {
+            return cases;
+        }
+
+        if (caseIndices.requiresLookup()) {
+            List<UUID> missing = uuids.stream().filter(uuid -> !cases.containsKey(uuid)).collect(Collectors.toList());
+            Map<UUID, CaseLocation> found;
+            try {
+                found = locate(missing, null, true);
+            } catch (IOException e) {
+                throw new ApplicationExceptions.EntityNotFoundException(String.format("Unable to find Cases: %s. %s", uuids, e.toString()), CASE_NOT_FOUND);
+            }
+            for (UUID uuid : missing) {
+                CaseLocation location = found.get(uuid);
+                cases.put(uuid, location == null ? new CaseData(uuid) : read(location.getResponse(), location.getRouting()));
+            }
+            return cases;
+        }
+
+        MultiGetRequest multiGetRequest = new MultiGetRequest();
+        uuids.stream().filter(uuid -> !cases.containsKey(uuid)).forEach(uuid -> multiGetRequest.add(index, "caseData", uuid.toString()));
+
+        MultiGetResponse multiGetResponse = null;
+        try {
+            multiGetResponse = client.mget(multiGetRequest, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw new ApplicationExceptions.EntityNotFoundException(String.format("Unable to find Cases: %s. %s", uuids, e.toString()), CASE_NOT_FOUND);
+        }
 
-        Map<String, Object> documentMapper = objectMapper.convertValue(caseData, Map.class);
+        for (MultiGetItemResponse item : multiGetResponse.getResponses()) {
+            UUID uuid = UUID.fromString(item.getId());
+            if (item.isFailed()) {
+                throw new ApplicationExceptions.EntityNotFoundException(String.format("Unable to find Case: %s. %s", uuid, item.getFailure().getMessage()), CASE_NOT_FOUND);
+            }
+
+            GetResponse getResponse = item.getResponse();
+            if (getResponse.isSourceEmpty()) {
+                log.debug("Not found case {}, creating...", uuid);
+                cases.put(uuid, new CaseData(uuid));
+            } else {
+                log.debug("Found case {}", uuid);
+                cases.put(uuid, read(getResponse, null));
+            }
+        }
+        return cases;
+    }
+
+    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
+    public BulkSaveResult saveAll(Collection<CaseData> cases) {
 
-        IndexRequest indexRequest = new IndexRequest(index, "caseData", caseData.getCaseUUID().toString()).source(documentMapper);
+        Map<String, CaseData> casesById = new HashMap<>();
+        Map<String, byte[]> sources = new HashMap<>();
+        Map<String, CaseData> moved = new HashMap<>();
+        BulkRequest bulkRequest = new BulkRequest();
+        for (CaseData caseData : cases) {
+            String id = caseData.getCaseUUID().toString();
+            byte[] source = caseDataCodec.write(caseData);
+            casesById.put(id, caseData);
+            sources.put(id, source);
+            String target = caseIndices.targetIndex(caseData.getIndex(), caseData.getDateReceived());
+            String routing = caseIndices.routing(caseData.getType());
+            if (caseIndices.moved(caseData.getIndex(), caseData.getRouting(), target, routing)) {
+                moved.put(id, caseData.copy());
+            }
+            IndexRequest indexRequest = new IndexRequest(target, "caseData", id).source(source, XContentType.JSON).routing(routing);
+            if (moved.containsKey(id)) {
+                log.debug("Moving case {} from {} to {}", id, caseData.getIndex(), target);
+            } else if (caseData.getSeqNo() == null) {
+                indexRequest.opType(DocWriteRequest.OpType.CREATE);
+            } else {
+                indexRequest.setIfSeqNo(caseData.getSeqNo());
+                indexRequest.setIfPrimaryTerm(caseData.getPrimaryTerm());
+            }
+            bulkRequest.add(indexRequest);
+        }
 
+        BulkResponse bulkResponse = null;
         try {
-            client.index(indexRequest, RequestOptions.DEFAULT);
+            bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
         } catch (IOException e) {
-            throw new ApplicationExceptions.ResourceServerException(String.format("Unable to find Case: %s. %s", caseData.getCaseUUID(), e.toString()), CASE_SAVE_FAILED);
+            cases.forEach(caseData -> caseDataCache.invalidate(caseData.getCaseUUID()));
+            throw new ApplicationExceptions.ResourceServerException(String.format("Unable to save Cases: %s. %s", cases.size(), e.toString()), CASE_SAVE_FAILED);
         }
+
+        // Read after the write is acknowledged, so a reindex starting meanwhile either mirrors it or refreshes before copying it
+        String mirrorTarget = caseIndexMirror.getTarget();
+        Set<UUID> conflicts = new HashSet<>();
+        Map<UUID, String> failures = new HashMap<>();
+        BulkRequest mirrorRequest = new BulkRequest();
+        BulkRequest cleanupRequest = new BulkRequest();
+        for (BulkItemResponse item : bulkResponse.getItems()) {
+            UUID uuid = UUID.fromString(item.getId());
+            if (item.isFailed()) {
+                caseDataCache.invalidate(uuid);
+                if (item.getFailure().getStatus() == RestStatus.CONFLICT) {
+                    log.debug("Conflict saving case {}", uuid);
+                    conflicts.add(uuid);
+                } else {
+                    log.warn("Failed to save case {}. {}", uuid, item.getFailureMessage());
+                    failures.put(uuid, item.getFailureMessage());
+                }
+            } else {
+                CaseData caseData = casesById.get(item.getId());
+                caseData.setSeqNo(item.getResponse().getSeqNo());
+                caseData.setPrimaryTerm(item.getResponse().getPrimaryTerm());
+                caseData.setIndex(item.getIndex());
+                caseData.setRouting(caseIndices.routing(caseData.getType()));
+                caseDataCache.put(caseData);
+                caseIndices.written(item.getIndex(), caseData.getRouting());
+                if (moved.containsKey(item.getId())) {
+                    CaseData previous = moved.get(item.getId());
+                    cleanupRequest.add(deleteRequest(item.getId(), previous.getIndex(), previous.getRouting(), previous.getSeqNo(), previous.getPrimaryTerm()));
+                }
+                if (mirrorTarget != null && !caseIndices.isTierIndex(item.getIndex())) {
+                    mirrorRequest.add(mirrorRequest(mirrorTarget, item.getId(), new BytesArray(sources.get(item.getId())), item.getVersion(), caseData.getRouting()));
+                }
+            }
+        }
+        cleanup(cleanupRequest);
+        mirror(mirrorRequest);
+        return new BulkSaveResult(conflicts, failures);
     }
 
     @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
-    public void update(CaseData caseData) {
+    public void create(CaseData caseData, Set<String> fields) {
 
-        CaseData resultDocument = findById(caseData.getCaseUUID());
+        Map<String, Object> partialDocument = XContentHelper.convertToMap(new BytesArray(caseDataCodec.write(caseData, fields)), false, XContentType.JSON).v2();
 
-        UpdateRequest updateRequest = new UpdateRequest(index, "caseData", resultDocument.getCaseUUID().toString());
+        update(caseData, CREATE_SCRIPT, Collections.singletonMap("fields", partialDocument));
+    }
 
-        Map<String, Object> documentMapper = objectMapper.convertValue(caseData, Map.class);
+    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
+    public void update(CaseData caseData, Set<String> fields) {
 
-        updateRequest.doc(documentMapper);
+        UpdateRequest updateRequest = new UpdateRequest(index, "caseData", caseData.getCaseUUID().toString())
+                .doc(caseDataCodec.write(caseData, fields), XContentType.JSON)
+                .upsert(caseDataCodec.write(caseData), XContentType.JSON)
+                .retryOnConflict(RETRY_ON_CONFLICT);
 
+        update(updateRequest, caseData, true);
+    }
+
+    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
+    public void addCorrespondent(UUID caseUUID, Correspondent correspondent) {
+
+        CaseData caseData = new CaseData(caseUUID);
+        caseData.addCorrespondent(correspondent);
+
+        Map<String, Object> params = Collections.singletonMap("correspondent", objectMapper.convertValue(correspondent, Map.class));
+
+        update(caseData, ADD_CORRESPONDENT_SCRIPT, params);
+    }
+
+    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
+    public void removeCorrespondent(UUID caseUUID, UUID correspondentUUID) {
+
+        CaseData caseData = new CaseData(caseUUID);
+        caseData.removeCorrespondent(correspondentUUID);
+
+        Map<String, Object> params = Collections.singletonMap("uuid", correspondentUUID.toString());
+
+        update(caseData, REMOVE_CORRESPONDENT_SCRIPT, params);
+    }
+
+    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
+    public void addTopic(UUID caseUUID, Topic topic) {
+
+        CaseData caseData = new CaseData(caseUUID);
+        caseData.addTopic(topic);
+
+        Map<String, Object> params = Collections.singletonMap("topic", objectMapper.convertValue(topic, Map.class));
+
+        update(caseData, ADD_TOPIC_SCRIPT, params);
+    }
+
+    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
+    public void removeTopic(UUID caseUUID, UUID topicUUID) {
+
+        CaseData caseData = new CaseData(caseUUID);
+        caseData.removeTopic(topicUUID);
+
+        Map<String, Object> params = Collections.singletonMap("uuid", topicUUID.toString());
+
+        update(caseData, REMOVE_TOPIC_SCRIPT, params);
+    }
+
+    @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
+    public Set<UUID> search(BoolQueryBuilder query, int resultsLimit) {
+
+        SearchRequest searchRequest = searchRequest(query, resultsLimit);
+
+        SearchResponse searchResponse;
         try {
-            client.update(updateRequest, RequestOptions.DEFAULT);
-        } catch (IOException e) {
-            throw new ApplicationExceptions.ResourceServerException(String.format("Unable to update Case: %s. %s", caseData.getCaseUUID(), e.toString()), CASE_UPDATE_FAILED);
+            searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
+        } catch (IOException | ElasticsearchStatusException e) {
+            throw new ApplicationExceptions.ResourceServerException(String.format("Unable to search cases. %s", e.toString()), SEARCH_FAILED);
         }
+
+        return getSearchResult(searchResponse);
+
     }
 
     @Retryable(maxAttemptsExpression = "${retry.maxAttempts}", backoff = @Backoff(delayExpression = "${retry.delay}"))
-    public Set<UUID> search(BoolQueryBuilder query, int resultsLimit) {
+    public List<MultiSearchResult> multiSearch(List<BoolQueryBuilder> queries, int resultsLimit) {
+
+        MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+        queries.forEach(query -> multiSearchRequest.add(searchRequest(query, resultsLimit)));
+
+        MultiSearchResponse multiSearchResponse;
+        try {
+            multiSearchResponse = client.msearch(multiSearchRequest, RequestOptions.DEFAULT);
+        } catch (IOException | ElasticsearchStatusException e) {
+            throw new ApplicationExceptions.ResourceServerException(String.format("Unable to search cases. %s", e.toString()), SEARCH_FAILED);
+        }
+
+        List<MultiSearchResult> results = new ArrayList<>(queries.size());
+        for (MultiSearchResponse.Item item : multiSearchResponse.getResponses()) {
+            if (item.isFailure()) {
+                results.add(new MultiSearchResult(null, item.getFailureMessage()));
+            } else {
+                results.add(new MultiSearchResult(getSearchResult(item.getResponse()), null));
+            }
+        }
+        return results;
+    }
+
+    public CasePage searchPage(BoolQueryBuilder query, int size, Object[] searchAfter) {
 
-        SearchRequest searchRequest = new SearchRequest(this.index);
         SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
         searchSourceBuilder.query(query);
-        searchSourceBuilder.size(resultsLimit);
-        searchRequest.source(searchSourceBuilder);
+        searchSourceBuilder.size(size);
+        searchSourceBuilder.fetchSource(false);
+        newestFirst(searchSourceBuilder);
+        searchSourceBuilder.trackTotalHits(false);
+        if (searchAfter != null) {
+            searchSourceBuilder.searchAfter(searchAfter);
+        }
+        SearchRequest searchRequest = searchRequest(searchSourceBuilder);
+
+        SearchResponse searchResponse;
+        try {
+            searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
+        } catch (IOException | ElasticsearchStatusException e) {
+            throw new ApplicationExceptions.ResourceServerException(String.format("Unable to search cases. %s", e.toString()), SEARCH_FAILED);
+        }
+
+        SearchHit[] searchHit = searchResponse.getHits().getHits();
+        List<UUID> caseUUIDs = new ArrayList<>(searchHit.length);
+        for (SearchHit hit : searchHit) {
+            caseUUIDs.add(UUID.fromString(hit.getId()));
+        }
+        Object[] next = searchHit.length == size ? searchHit[searchHit.length - 1].getSortValues() : null;
+        return new CasePage(caseUUIDs, next);
+    }
+
+    public CaseFacets facets(BoolQueryBuilder query, DateHistogramInterval interval, int typesLimit) {
 
-        SearchResponse searchResponse = null;
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.query(query);
+        searchSourceBuilder.size(0);
+        searchSourceBuilder.trackTotalHits(true);
+        searchSourceBuilder.aggregation(AggregationBuilders.terms("caseTypes").field("type").size(typesLimit));
+        searchSourceBuilder.aggregation(AggregationBuilders.dateHistogram("dateReceived").field("dateReceived")
+                .dateHistogramInterval(interval).format("yyyy-MM-dd").minDocCount(1));
+        searchSourceBuilder.aggregation(AggregationBuilders.filters("status",
+                new FiltersAggregator.KeyedFilter("open", QueryBuilders.termQuery("completed", false)),
+                new FiltersAggregator.KeyedFilter("completed", QueryBuilders.termQuery("completed", true))));
+        SearchRequest searchRequest = searchRequest(searchSourceBuilder).requestCache(true);
+
+        SearchResponse searchResponse;
         try {
             searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
         } catch (IOException e) {
-            log.warn("Search failed, returning empty set. {}", e.toString());
-            return new HashSet<>();
+            throw new ApplicationExceptions.ResourceServerException(String.format("Unable to count cases. %s", e.toString()), SEARCH_FAILED);
         }
 
-        return getSearchResult(searchResponse);
+        Map<String, Long> caseTypes = new LinkedHashMap<>();
+        Terms types = searchResponse.getAggregations().get("caseTypes");
+        types.getBuckets().forEach(bucket -> caseTypes.put(bucket.getKeyAsString(), bucket.getDocCount()));
+
+        Map<String, Long> dateReceived = new LinkedHashMap<>();
+        Histogram received = searchResponse.getAggregations().get("dateReceived");
+        received.getBuckets().forEach(bucket -> dateReceived.put(bucket.getKeyAsString(), bucket.getDocCount()));
+
+        Filters status = searchResponse.getAggregations().get("status");
+        return new CaseFacets(searchResponse.getHits().getTotalHits(),
+                status.getBucketByKey("open").getDocCount(),
+                status.getBucketByKey("completed").getDocCount(),
+                caseTypes,
+                dateReceived);
+    }
+
+    public List<CorrespondentMatch> suggestCorrespondents(String prefix, int size) {
+
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+                .must(QueryBuilders.matchQuery("correspondentNames.prefix", prefix).operator(Operator.AND))
+                .filter(QueryBuilders.termQuery("deleted", false));
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.query(query);
+        searchSourceBuilder.size(size);
+        searchSourceBuilder.fetchSource(new String[]{"currentCorrespondents.fullname"}, null);
+        searchSourceBuilder.trackTotalHits(false);
+        SearchRequest searchRequest = new SearchRequest(this.index).source(searchSourceBuilder);
+
+        SearchResponse searchResponse;
+        try {
+            searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw new ApplicationExceptions.ResourceServerException(String.format("Unable to suggest correspondents. %s", e.toString()), SEARCH_FAILED);
+        }
+
+        List<String> prefixTokens = CorrespondentNames.tokens(prefix);
+        List<CorrespondentMatch> suggestions = new ArrayList<>();
+        for (SearchHit hit : searchResponse.getHits().getHits()) {
+            UUID caseUUID = UUID.fromString(hit.getId());
+            Object correspondents = hit.getSourceAsMap().get("currentCorrespondents");
+            if (correspondents instanceof List) {
+                for (Object correspondent : (List<?>) correspondents) {
+                    Object fullname = ((Map<?, ?>) correspondent).get("fullname");
+                    if (fullname != null && CorrespondentNames.matches(prefixTokens, fullname.toString())) {
+                        suggestions.add(new CorrespondentMatch(fullname.toString(), caseUUID));
+                    }
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    private SearchRequest searchRequest(BoolQueryBuilder query, int resultsLimit) {
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.query(query);
+        searchSourceBuilder.size(resultsLimit);
+        searchSourceBuilder.fetchSource(false);
+        if (sorted) {
+            newestFirst(searchSourceBuilder);
+        } else {
+            // Unsorted indices would have to sort every match, and may map caseUUID as text, which cannot be sorted on
+            searchSourceBuilder.sort(SortBuilders.fieldSort("_doc"));
+        }
+        searchSourceBuilder.trackTotalHits(false);
+        return searchRequest(searchSourceBuilder);
+    }
+
+    private static void newestFirst(SearchSourceBuilder searchSourceBuilder) {
+        searchSourceBuilder.sort(SortBuilders.fieldSort("dateReceived").order(SortOrder.DESC).missing("_last"));
+        searchSourceBuilder.sort(SortBuilders.fieldSort("caseUUID").order(SortOrder.ASC));
+    }
+
+    private SearchRequest searchRequest(SearchSourceBuilder searchSourceBuilder) {
+        SearchRequest searchRequest = new SearchRequest(caseIndices.searchIndices(searchSourceBuilder.query()))
+                .source(searchSourceBuilder)
+                .routing(caseIndices.searchRouting(searchSourceBuilder.query()));
+        if (caseIndices.isPartitioned() || caseIndices.isTiered()) {
+            searchRequest.indicesOptions(IndicesOptions.lenientExpandOpen());
+        }
+        return searchRequest;
+    }
+
+    private void update(CaseData upsert, String script, Map<String, Object> params) {
 
+        UpdateRequest updateRequest = new UpdateRequest(index, "caseData", upsert.getCaseUUID().toString())
+                .script(new Script(ScriptType.INLINE, Script.DEFAULT_SCRIPT_LANG, script, params))
+                .upsert(caseDataCodec.write(upsert), XContentType.JSON)
+                .retryOnConflict(RETRY_ON_CONFLICT);
+
+        update(updateRequest, upsert, false);
+    }
+
+    private void update(UpdateRequest updateRequest, CaseData upsert, boolean existing) {
+        UUID caseUUID = upsert.getCaseUUID();
+        boolean located = caseIndices.requiresLookup();
+        CaseLocation expected = located ? expectedLocation(upsert, existing) : null;
+        caseDataCache.invalidate(caseUUID);
+        if (caseIndexMirror.isActive() || located) {
+            updateRequest.fetchSource(true);
+        }
+
+        UpdateResponse updateResponse;
+        try {
+            updateResponse = located ? updateLocated(updateRequest, upsert, expected) : client.update(updateRequest, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw new ApplicationExceptions.ResourceServerException(String.format("Unable to update Case: %s. %s", caseUUID, e.toString()), CASE_UPDATE_FAILED);
+        }
+
+        GetResult result = updateResponse.getGetResult();
+        String mirrorTarget = caseIndexMirror.getTarget();
+        if (mirrorTarget != null && !caseIndices.isTierIndex(updateResponse.getIndex())) {
+            if (result == null) {
+                mirrorCurrent(mirrorTarget, updateResponse, updateRequest.routing());
+            } else if (result.isExists()) {
+                String routing = caseIndices.routing(caseDataCodec.read(result.sourceRef()).getType());
+                mirror(new BulkRequest().add(mirrorRequest(mirrorTarget, updateResponse.getId(), result.sourceRef(), updateResponse.getVersion(), routing)));
+            }
+        }
+        if (result == null || !result.isExists()) {
+            return;
+        }
+        CaseData updated = caseDataCodec.read(result.sourceRef());
+        if (located) {
+            caseIndices.written(updateResponse.getIndex(), updateRequest.routing());
+            String target = caseIndices.targetIndex(updateResponse.getIndex(), updated.getDateReceived());
+            String routing = caseIndices.routing(updated.getType());
+            if (caseIndices.moved(updateResponse.getIndex(), updateRequest.routing(), target, routing)) {
+                move(updateResponse, updateRequest.routing(), target, routing, result.sourceRef());
+            } else {
+                updated.setSeqNo(updateResponse.getSeqNo());
+                updated.setPrimaryTerm(updateResponse.getPrimaryTerm());
+                updated.setIndex(updateResponse.getIndex());
+                updated.setRouting(updateRequest.routing());
+                caseDataCache.put(updated);
+            }
+        }
+    }
+
+    // Where the case should already be, so the usual update can skip looking it up
+    private CaseLocation expectedLocation(CaseData upsert, boolean existing) {
+        CaseData cached = caseDataCache.getAll(Collections.singleton(upsert.getCaseUUID())).get(upsert.getCaseUUID());
+        if (cached != null && cached.getIndex() != null) {
+            return new CaseLocation(cached.getIndex(), cached.getRouting(), null);
+        }
+        if (existing && upsert.getDateReceived() != null && (upsert.getType() != null || !caseIndices.isRouted())) {
+            return new CaseLocation(caseIndices.writeIndex(upsert.getDateReceived()), caseIndices.routing(upsert.getType()), null);
+        }
+        return null;
+    }
+
+    private UpdateResponse updateLocated(UpdateRequest updateRequest, CaseData upsert, CaseLocation expected) throws IOException {
+        // Only upsert once the case is known to be nowhere, a case moved or purged between the lookup and the
+        // update would otherwise be written again as a partial copy
+        IndexRequest upsertRequest = updateRequest.upsertRequest();
+        updateRequest.upsert((IndexRequest) null);
+        if (expected != null) {
+            UpdateResponse updateResponse = updateExisting(updateRequest, expected.getIndex(), expected.getRouting());
+            if (updateResponse != null) {
+                return updateResponse;
+            }
+        }
+
+        UUID caseUUID = upsert.getCaseUUID();
+        for (int attempt = 0; attempt < MAX_LOCATE_ATTEMPTS; attempt++) {
+            CaseLocation current = locate(Collections.singleton(caseUUID), upsert.getType(), false).get(caseUUID);
+            if (current == null) {
+                updateRequest.upsert(upsertRequest);
+                return client.update(updateRequest.index(caseIndices.writeIndex(upsert.getDateReceived())).routing(caseIndices.routing(upsert.getType())), RequestOptions.DEFAULT);
+            }
+            UpdateResponse updateResponse = updateExisting(updateRequest, current.getIndex(), current.getRouting());
+            if (updateResponse != null) {
+                return updateResponse;
+            }
+        }
+        throw new ApplicationExceptions.ResourceServerException(String.format("Unable to update Case: %s. It moved while being updated", caseUUID), CASE_UPDATE_FAILED);
+    }
+
+    private UpdateResponse updateExisting(UpdateRequest updateRequest, String index, String routing) throws IOException {
+        try {
+            return client.update(updateRequest.index(index).routing(routing), RequestOptions.DEFAULT);
+        } catch (ElasticsearchStatusException e) {
+            if (e.status() != RestStatus.NOT_FOUND) {
+                throw e;
+            }
+            log.debug("Case {} is not in {}", updateRequest.id(), index);
+            return null;
+        }
+    }
+
+    private Map<UUID, CaseLocation> locate(Collection<UUID> uuids, String type, boolean fetchSource) throws IOException {
+        List<String> routings = caseIndices.routings(type);
+        Map<UUID, CaseLocation> found = locate(uuids, caseIndices.indices(), routings, fetchSource);
+        if (found.size() < uuids.size() && caseIndices.reloadIndices()) {
+            // A partition created since the last lookup, possibly by another instance, may hold the missing cases
+            List<UUID> missing = uuids.stream().filter(uuid -> !found.containsKey(uuid)).collect(Collectors.toList());
+            found.putAll(locate(missing, caseIndices.indices(), routings, fetchSource));
+        }
+        return found;
+    }
+
+    private Map<UUID, CaseLocation> locate(Collection<UUID> uuids, List<String> indices, List<String> routings, boolean fetchSource) throws IOException {
+        Map<UUID, CaseLocation> found = new HashMap<>();
+        if (indices.isEmpty() || uuids.isEmpty()) {
+            return found;
+        }
+
+        MultiGetRequest multiGetRequest = new MultiGetRequest();
+        for (UUID uuid : uuids) {
+            for (String index : indices) {
+                for (String routing : routings) {
+                    multiGetRequest.add(new MultiGetRequest.Item(index, "caseData", uuid.toString())
+                            .routing(routing)
+                            .fetchSourceContext(fetchSource ? FetchSourceContext.FETCH_SOURCE : FetchSourceContext.DO_NOT_FETCH_SOURCE));
+                }
+            }
+        }
+
+        MultiGetItemResponse[] items = client.mget(multiGetRequest, RequestOptions.DEFAULT).getResponses();
+        for (int i = 0; i < items.length; i++) {
+            MultiGetItemResponse item = items[i];
+            if (item.isFailed() || !item.getResponse().isExists()) {
+                continue;
+            }
+            UUID uuid = UUID.fromString(item.getId());
+            CaseLocation location = new CaseLocation(item.getIndex(), multiGetRequest.getItems().get(i).routing(), item.getResponse());
+            CaseLocation previous = found.get(uuid);
+            if (previous == null || (previous.getRouting() == null && previous.getIndex().equals(location.getIndex()))) {
+                found.put(uuid, location);
+            } else if (!previous.getIndex().equals(location.getIndex())) {
+                log.warn("Case {} is in both {} and {}", uuid, previous.getIndex(), location.getIndex());
+            }
+        }
+        return found;
+    }
+
+    private void move(UpdateResponse from, String fromRouting, String to, String toRouting, BytesReference source) {
+        String id = from.getId();
+        try {
+            client.index(new IndexRequest(to, "caseData", id).source(source, XContentType.JSON).routing(toRouting), RequestOptions.DEFAULT);
+            client.delete(deleteRequest(id, from.getIndex(), fromRouting, from.getSeqNo(), from.getPrimaryTerm()), RequestOptions.DEFAULT);
+        } catch (ElasticsearchStatusException e) {
+            if (e.status() != RestStatus.CONFLICT) {
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new ApplicationExceptions.ResourceServerException(String.format("Unable to move Case: %s from %s to %s. %s", id, from.getIndex(), to, e.toString()), CASE_UPDATE_FAILED);
+        }
+        caseIndices.written(to, toRouting);
+        log.debug("Moved case {} from {} to {}", id, from.getIndex(), to);
+    }
+
+    private DeleteRequest deleteRequest(String id, String index, String routing, Long seqNo, Long primaryTerm) {
+        DeleteRequest deleteRequest = new DeleteRequest(index, "caseData", id).routing(routing);
+        if (seqNo != null) {
+            deleteRequest.setIfSeqNo(seqNo);
+            deleteRequest.setIfPrimaryTerm(primaryTerm);
+        }
+        return deleteRequest;
+    }
+
+    private void cleanup(BulkRequest cleanupRequest) {
+        if (cleanupRequest.numberOfActions() == 0) {
+            return;
+        }
+        try {
+            BulkResponse response = client.bulk(cleanupRequest, RequestOptions.DEFAULT);
+            for (BulkItemResponse item : response.getItems()) {
+                if (item.isFailed() && item.getFailure().getStatus() != RestStatus.CONFLICT) {
+                    log.warn("Failed to remove moved case {} from {}. {}", item.getId(), item.getIndex(), item.getFailureMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to remove {} moved cases. {}", cleanupRequest.numberOfActions(), e.toString());
+        }
+    }
+
+    private CaseData read(GetResponse getResponse, String routing) {
+        CaseData caseData = caseDataCodec.read(getResponse.getSourceAsBytesRef());
+        caseData.setSeqNo(getResponse.getSeqNo());
+        caseData.setPrimaryTerm(getResponse.getPrimaryTerm());
+        caseData.setIndex(getResponse.getIndex());
+        caseData.setRouting(routing);
+        caseDataCache.put(caseData);
+        return caseData;
+    }
+
+    private IndexRequest mirrorRequest(String target, String id, BytesReference source, long version, String routing) {
+        return new IndexRequest(target, "caseData", id)
+                .source(source, XContentType.JSON)
+                .routing(routing)
+                .versionType(VersionType.EXTERNAL)
+                .version(version);
+    }
+
+    // The mirror started after the update was sent, so its source was not returned with the response
+    private void mirrorCurrent(String target, UpdateResponse updateResponse, String routing) {
+        GetResponse getResponse;
+        try {
+            getResponse = client.get(new GetRequest(updateResponse.getIndex(), "caseData", updateResponse.getId()).routing(routing), RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            log.warn("Failed to mirror case {}. {}", updateResponse.getId(), e.toString(), value(EVENT, MIRROR_WRITE_FAILED));
+            caseIndexMirror.failed(1);
+            return;
+        }
+        if (getResponse.isExists()) {
+            String type = caseDataCodec.read(getResponse.getSourceAsBytesRef()).getType();
+            mirror(new BulkRequest().add(mirrorRequest(target, getResponse.getId(), getResponse.getSourceAsBytesRef(), getResponse.getVersion(), caseIndices.routing(type))));
+        }
+    }
+
+    private void mirror(BulkRequest mirrorRequest) {
+        if (mirrorRequest.numberOfActions() == 0) {
+            return;
+        }
+        try {
+            BulkResponse response = client.bulk(mirrorRequest, RequestOptions.DEFAULT);
+            int failed = 0;
+            for (BulkItemResponse item : response.getItems()) {
+                if (item.isFailed() && item.getFailure().getStatus() != RestStatus.CONFLICT) {
+                    log.warn("Failed to mirror case {}. {}", item.getId(), item.getFailureMessage(), value(EVENT, MIRROR_WRITE_FAILED));
+                    failed++;
+                }
+            }
+            caseIndexMirror.mirrored(mirrorRequest.numberOfActions() - failed);
+            caseIndexMirror.failed(failed);
+        } catch (IOException e) {
+            log.warn("Failed to mirror {} cases. {}", mirrorRequest.numberOfActions(), e.toString(), value(EVENT, MIRROR_WRITE_FAILED));
+            caseIndexMirror.failed(mirrorRequest.numberOfActions());
+        }
     }
 
     private Set<UUID> getSearchResult(SearchResponse response) {
         if (response != null) {
             SearchHit[] searchHit = response.getHits().getHits();
 
-            Set<CaseData> cases = new HashSet<>();
-
-            if (searchHit.length > 0) {
-                Arrays.stream(searchHit).forEach(hit -> cases.add(objectMapper.convertValue(hit.getSourceAsMap(), CaseData.class)));
-                return cases.stream().map(CaseData::getCaseUUID).collect(Collectors.toSet());
-            } else {
-                return new HashSet<>();
+            Set<UUID> caseUUIDs = new LinkedHashSet<>((int) (searchHit.length / 0.75f) + 1);
+            for (SearchHit hit : searchHit) {
+                caseUUIDs.add(UUID.fromString(hit.getId()));
             }
+            return caseUUIDs;
         } else {
-            return new HashSet<>();
+            return new LinkedHashSet<>();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+import java.util.UUID;
+
+@AllArgsConstructor
+@Getter
+public class MultiSearchResult {
+
+    private Set<UUID> caseUUIDs;
+
+    private String failure;
+
+}
@@ -0,0 +1,37 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class ReindexProgress {
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private State state;
+
+    private String source;
+
+    private String target;
+
+    private long total;
+
+    private long copied;
+
+    private long mirrored;
+
+    private long failed;
+
+    private double docsPerSecond;
+
+    private Long etaSeconds;
+
+    private String error;
+
+}
@@ -45,4 +45,12 @@ public interface ApplicationExceptions {
         }
 
     }
-}
\ No newline at end of file
+
+    class BadRequestException extends ResourceException {
+
+        public BadRequestException(String msg, LogEvent event, Object... args) {
+            super(msg, event, args);
+        }
+
+    }
+}
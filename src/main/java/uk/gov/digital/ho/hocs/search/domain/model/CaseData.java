@@ -1,10 +1,10 @@
 package uk.gov.digital.ho.hocs.search.domain.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
-import uk.gov.digital.ho.hocs.search.api.dto.CreateCorrespondentRequest;
 import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
 
 import java.time.LocalDate;
@@ -46,16 +46,32 @@ public class CaseData {
 
     private Set<Topic> allTopics = new HashSet<>();
 
+    private Set<UUID> removedCorrespondents = new HashSet<>();
+
+    private Set<UUID> removedTopics = new HashSet<>();
+
+    @JsonIgnore
+    private Long seqNo;
+
+    @JsonIgnore
+    private Long primaryTerm;
+
+    @JsonIgnore
+    private String index;
+
+    @JsonIgnore
+    private String routing;
+
     public CaseData(UUID uuid) {
         this.caseUUID = uuid;
     }
 
     public void create(CreateCaseRequest createCaseRequest) {
-        this.created = createCaseRequest.getCreated();
-        this.type = createCaseRequest.getType();
-        this.reference = createCaseRequest.getReference();
-        this.caseDeadline = createCaseRequest.getCaseDeadline();
-        this.dateReceived = createCaseRequest.getDateReceived();
+        this.created = ifAbsent(this.created, createCaseRequest.getCreated());
+        this.type = ifAbsent(this.type, createCaseRequest.getType());
+        this.reference = ifAbsent(this.reference, createCaseRequest.getReference());
+        this.caseDeadline = ifAbsent(this.caseDeadline, createCaseRequest.getCaseDeadline());
+        this.dateReceived = ifAbsent(this.dateReceived, createCaseRequest.getDateReceived());
     }
 
     public void update(UpdateCaseRequest updateCaseRequest) {
@@ -76,23 +92,60 @@ public class CaseData {
         this.completed = true;
     }
 
-    public void addCorrespondent(CreateCorrespondentRequest createCorrespondentRequest) {
-        Correspondent correspondent = Correspondent.from(createCorrespondentRequest);
-        this.currentCorrespondents.add(correspondent);
+    public void addCorrespondent(Correspondent correspondent) {
+        this.allCorrespondents.removeIf(c -> c.getUuid().equals(correspondent.getUuid()));
         this.allCorrespondents.add(correspondent);
+        this.currentCorrespondents.removeIf(c -> c.getUuid().equals(correspondent.getUuid()));
+        if (!this.removedCorrespondents.contains(correspondent.getUuid())) {
+            this.currentCorrespondents.add(correspondent);
+        }
     }
 
     public void removeCorrespondent(UUID correspondentUUID) {
         this.currentCorrespondents.removeIf(c -> c.getUuid().equals(correspondentUUID));
+        this.removedCorrespondents.add(correspondentUUID);
     }
 
     public void addTopic(Topic topic) {
-        this.currentTopics.add(topic);
+        this.allTopics.removeIf(t -> t.getUuid().equals(topic.getUuid()));
         this.allTopics.add(topic);
+        this.currentTopics.removeIf(t -> t.getUuid().equals(topic.getUuid()));
+        if (!this.removedTopics.contains(topic.getUuid())) {
+            this.currentTopics.add(topic);
+        }
     }
 
     public void removeTopic(UUID topicUUID) {
-        this.currentTopics.removeIf(c -> c.getUuid().equals(topicUUID));
+        this.currentTopics.removeIf(t -> t.getUuid().equals(topicUUID));
+        this.removedTopics.add(topicUUID);
+    }
+
+    public CaseData copy() {
+        CaseData copy = new CaseData(this.caseUUID);
+        copy.created = this.created;
+        copy.type = this.type;
+        copy.reference = this.reference;
+        copy.primaryTopic = this.primaryTopic;
+        copy.primaryCorrespondent = this.primaryCorrespondent;
+        copy.caseDeadline = this.caseDeadline;
+        copy.dateReceived = this.dateReceived;
+        copy.deleted = this.deleted;
+        copy.completed = this.completed;
+        copy.currentCorrespondents = new HashSet<>(this.currentCorrespondents);
+        copy.allCorrespondents = new HashSet<>(this.allCorrespondents);
+        copy.currentTopics = new HashSet<>(this.currentTopics);
+        copy.allTopics = new HashSet<>(this.allTopics);
+        copy.removedCorrespondents = new HashSet<>(this.removedCorrespondents);
+        copy.removedTopics = new HashSet<>(this.removedTopics);
+        copy.seqNo = this.seqNo;
+        copy.primaryTerm = this.primaryTerm;
+        copy.index = this.index;
+        copy.routing = this.routing;
+        return copy;
+    }
+
+    private static <T> T ifAbsent(T current, T value) {
+        return current != null ? current : value;
     }
 
 }
@@ -1,5 +1,6 @@
 package uk.gov.digital.ho.hocs.search.domain.model;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import uk.gov.digital.ho.hocs.search.api.dto.AddressDto;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @NoArgsConstructor
+@EqualsAndHashCode(of = "uuid")
 @Getter
 public class Correspondent {
 
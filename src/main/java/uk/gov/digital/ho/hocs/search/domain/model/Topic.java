@@ -2,6 +2,7 @@ package uk.gov.digital.ho.hocs.search.domain.model;
 
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
@@ -9,6 +10,7 @@ import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
 import java.util.UUID;
 
 @NoArgsConstructor
+@EqualsAndHashCode(of = "uuid")
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 @Getter
 public class Topic {
@@ -1,19 +1,30 @@
 package uk.gov.digital.ho.hocs.search.api;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import uk.gov.digital.ho.hocs.search.api.dto.*;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.BulkSaveResult;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CaseFacets;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CasePage;
 import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.ElasticSearchClient;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.MultiSearchResult;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
 import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.Correspondent;
 import uk.gov.digital.ho.hocs.search.domain.model.Topic;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -34,34 +45,30 @@ public class CaseDataServiceTest {
 
     @Before
     public void setup() {
-        caseDataService = new CaseDataService(elasticSearchClient, 10);
+        caseDataService = new CaseDataService(elasticSearchClient, new SearchResultCache(0, 0, 0, new SimpleMeterRegistry()), new SearchCoalescer(1000, new SimpleMeterRegistry()), 10, 2, 3, true);
     }
 
     @Test
     public void ShouldCallCollaboratorsCreateCase() {
 
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(caseData);
-
         caseDataService.createCase(caseUUID, validCreateCaseRequest);
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).save(caseData);
+        ArgumentCaptor<CaseData> caseDataCaptor = ArgumentCaptor.forClass(CaseData.class);
+        verify(elasticSearchClient, times(1)).create(caseDataCaptor.capture(), anySet());
 
-        verify(caseData, times(1)).create(validCreateCaseRequest);
+        assertThat(caseDataCaptor.getValue().getCaseUUID()).isEqualTo(caseUUID);
+        assertThat(caseDataCaptor.getValue().getType()).isEqualTo(validCreateCaseRequest.getType());
+        assertThat(caseDataCaptor.getValue().getReference()).isEqualTo(validCreateCaseRequest.getReference());
 
         verifyNoMoreInteractions(elasticSearchClient);
-        verifyNoMoreInteractions(caseData);
     }
 
     @Test
-    public void ShouldCreateNewIfNotFoundCreateCase() {
-
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(new CaseData(caseUUID));
+    public void ShouldOnlyWriteCreateFieldsCreateCase() {
 
         caseDataService.createCase(caseUUID, validCreateCaseRequest);
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).save(any(CaseData.class));
+        verify(elasticSearchClient, times(1)).create(any(CaseData.class), eq(Set.of("created", "type", "reference", "caseDeadline", "dateReceived")));
 
         verifyNoMoreInteractions(elasticSearchClient);
     }
@@ -69,28 +76,14 @@ public class CaseDataServiceTest {
     @Test
     public void ShouldCallCollaboratorsUpdateCase() {
 
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(caseData);
-
         caseDataService.updateCase(caseUUID, validUpdateCaseRequest);
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(caseData);
-
-        verify(caseData, times(1)).update(validUpdateCaseRequest);
-
-        verifyNoMoreInteractions(elasticSearchClient);
-        verifyNoMoreInteractions(caseData);
-    }
-
-    @Test
-    public void ShouldCreateNewIfNotFoundUpdateCase() {
-
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(new CaseData(caseUUID));
+        ArgumentCaptor<CaseData> caseDataCaptor = ArgumentCaptor.forClass(CaseData.class);
+        verify(elasticSearchClient, times(1)).update(caseDataCaptor.capture(), anySet());
 
-        caseDataService.updateCase(caseUUID, validUpdateCaseRequest);
-
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(any(CaseData.class));
+        assertThat(caseDataCaptor.getValue().getCaseUUID()).isEqualTo(caseUUID);
+        assertThat(caseDataCaptor.getValue().getPrimaryTopic()).isEqualTo(validUpdateCaseRequest.getPrimaryTopic());
+        assertThat(caseDataCaptor.getValue().getPrimaryCorrespondent()).isEqualTo(validUpdateCaseRequest.getPrimaryCorrespondent());
 
         verifyNoMoreInteractions(elasticSearchClient);
     }
@@ -98,187 +91,221 @@ public class CaseDataServiceTest {
     @Test
     public void ShouldCallCollaboratorsDeleteCase() {
 
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(caseData);
-
         caseDataService.deleteCase(caseUUID);
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(caseData);
+        ArgumentCaptor<CaseData> caseDataCaptor = ArgumentCaptor.forClass(CaseData.class);
+        verify(elasticSearchClient, times(1)).update(caseDataCaptor.capture(), eq(Set.of("deleted")));
 
-        verify(caseData, times(1)).delete();
+        assertThat(caseDataCaptor.getValue().getDeleted()).isTrue();
 
         verifyNoMoreInteractions(elasticSearchClient);
-        verifyNoMoreInteractions(caseData);
     }
 
     @Test
     public void ShouldCallCollaboratorsCompleteCase() {
 
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(caseData);
-
         caseDataService.completeCase(caseUUID);
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(caseData);
+        ArgumentCaptor<CaseData> caseDataCaptor = ArgumentCaptor.forClass(CaseData.class);
+        verify(elasticSearchClient, times(1)).update(caseDataCaptor.capture(), eq(Set.of("completed")));
 
-        verify(caseData, times(1)).complete();
+        assertThat(caseDataCaptor.getValue().getCompleted()).isTrue();
 
         verifyNoMoreInteractions(elasticSearchClient);
-        verifyNoMoreInteractions(caseData);
     }
 
     @Test
-    public void ShouldCreateNewIfNotFoundDeleteCase() {
-
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(new CaseData(caseUUID));
+    public void ShouldCallCollaboratorsCreateCorrespondent() {
 
-        caseDataService.deleteCase(caseUUID);
+        caseDataService.createCorrespondent(caseUUID, validCreateCorrespondentRequest);
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(any(CaseData.class));
+        verify(elasticSearchClient, times(1)).addCorrespondent(eq(caseUUID), any(Correspondent.class));
 
         verifyNoMoreInteractions(elasticSearchClient);
     }
 
     @Test
-    public void ShouldCreateNewIfNotFoundCompleteCase() {
-
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(new CaseData(caseUUID));
+    public void ShouldCallCollaboratorsDeleteCorrespondent() {
 
-        caseDataService.completeCase(caseUUID);
+        caseDataService.deleteCorrespondent(caseUUID, validCreateCorrespondentRequest.getUuid().toString());
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(any(CaseData.class));
+        verify(elasticSearchClient, times(1)).removeCorrespondent(caseUUID, validCreateCorrespondentRequest.getUuid());
 
         verifyNoMoreInteractions(elasticSearchClient);
     }
 
     @Test
-    public void ShouldCallCollaboratorsCreateCorrespondent() {
-
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(caseData);
-
-        caseDataService.createCorrespondent(caseUUID, validCreateCorrespondentRequest);
+    public void ShouldCallCollaboratorsCreateTopic() {
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(caseData);
+        caseDataService.createTopic(caseUUID, validCreateTopicRequest);
 
-        verify(caseData, times(1)).addCorrespondent(validCreateCorrespondentRequest);
+        verify(elasticSearchClient, times(1)).addTopic(eq(caseUUID), any(Topic.class));
 
         verifyNoMoreInteractions(elasticSearchClient);
-        verifyNoMoreInteractions(caseData);
     }
 
     @Test
-    public void ShouldCreateNewIfNotFoundCreateCorrespondent() {
-
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(new CaseData(caseUUID));
+    public void ShouldCallCollaboratorsDeleteTopic() {
 
-        caseDataService.createCorrespondent(caseUUID, validCreateCorrespondentRequest);
+        caseDataService.deleteTopic(caseUUID, validCreateTopicRequest.getUuid().toString());
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(any(CaseData.class));
+        verify(elasticSearchClient, times(1)).removeTopic(caseUUID, validCreateTopicRequest.getUuid());
 
         verifyNoMoreInteractions(elasticSearchClient);
     }
 
     @Test
-    public void ShouldCallCollaboratorsDeleteCorrespondent() {
+    public void ShouldApplyAllMutationsAndSaveOnce() {
 
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(caseData);
+        Map<UUID, CaseData> cases = new HashMap<>();
+        cases.put(caseUUID, caseData);
+        when(elasticSearchClient.findAllById(Collections.singleton(caseUUID))).thenReturn(cases);
+        when(elasticSearchClient.saveAll(cases.values())).thenReturn(new BulkSaveResult(new HashSet<>(), new HashMap<>()));
 
-        caseDataService.deleteCorrespondent(caseUUID, validCreateCorrespondentRequest.getUuid().toString());
+        Map<UUID, List<Consumer<CaseData>>> mutations = new HashMap<>();
+        mutations.put(caseUUID, Arrays.asList(CaseData::complete, CaseData::delete));
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(caseData);
+        Map<UUID, String> failures = caseDataService.applyAll(mutations);
 
-        verify(caseData, times(1)).removeCorrespondent(validCreateCorrespondentRequest.getUuid());
+        assertThat(failures).isEmpty();
+        verify(elasticSearchClient, times(1)).findAllById(Collections.singleton(caseUUID));
+        verify(elasticSearchClient, times(1)).saveAll(cases.values());
+
+        verify(caseData, times(1)).complete();
+        verify(caseData, times(1)).delete();
 
         verifyNoMoreInteractions(elasticSearchClient);
         verifyNoMoreInteractions(caseData);
     }
 
     @Test
-    public void ShouldCreateNewIfNotFoundDeleteCorrespondent() {
+    public void ShouldReapplyConflictingCases() {
 
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(new CaseData(caseUUID));
+        Map<UUID, CaseData> cases = new HashMap<>();
+        cases.put(caseUUID, caseData);
+        when(elasticSearchClient.findAllById(Collections.singleton(caseUUID))).thenReturn(cases);
+        when(elasticSearchClient.saveAll(cases.values()))
+                .thenReturn(new BulkSaveResult(Collections.singleton(caseUUID), new HashMap<>()))
+                .thenReturn(new BulkSaveResult(new HashSet<>(), new HashMap<>()));
 
-        caseDataService.deleteCorrespondent(caseUUID, validCreateCorrespondentRequest.getUuid().toString());
+        Map<UUID, List<Consumer<CaseData>>> mutations = new HashMap<>();
+        mutations.put(caseUUID, Collections.singletonList(CaseData::complete));
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(any(CaseData.class));
+        Map<UUID, String> failures = caseDataService.applyAll(mutations);
+
+        assertThat(failures).isEmpty();
+        verify(elasticSearchClient, times(2)).findAllById(Collections.singleton(caseUUID));
+        verify(elasticSearchClient, times(2)).saveAll(cases.values());
+        verify(caseData, times(2)).complete();
 
         verifyNoMoreInteractions(elasticSearchClient);
     }
 
     @Test
-    public void ShouldCallCollaboratorsCreateTopic() {
-
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(caseData);
-
-        caseDataService.createTopic(caseUUID, validCreateTopicRequest);
+    public void ShouldFailCasesStillConflictingAfterRetries() {
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(caseData);
+        Map<UUID, CaseData> cases = new HashMap<>();
+        cases.put(caseUUID, caseData);
+        when(elasticSearchClient.findAllById(Collections.singleton(caseUUID))).thenReturn(cases);
+        when(elasticSearchClient.saveAll(cases.values())).thenReturn(new BulkSaveResult(Collections.singleton(caseUUID), new HashMap<>()));
 
+        Map<UUID, List<Consumer<CaseData>>> mutations = new HashMap<>();
+        mutations.put(caseUUID, Collections.singletonList(CaseData::complete));
 
-        verify(caseData, times(1)).addTopic(any(Topic.class));
+        Map<UUID, String> failures = caseDataService.applyAll(mutations);
 
-        verifyNoMoreInteractions(elasticSearchClient);
-        verifyNoMoreInteractions(caseData);
+        assertThat(failures).containsOnlyKeys(caseUUID);
+        verify(elasticSearchClient, times(3)).saveAll(cases.values());
     }
 
     @Test
-    public void ShouldCreateNewIfNotFoundCreateTopic() {
-
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(new CaseData(caseUUID));
-
-        caseDataService.createTopic(caseUUID, validCreateTopicRequest);
+    public void ShouldNotSearchIfNoParams() {
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(any(CaseData.class));
+        SearchRequest searchRequest = new SearchRequest();
+        caseDataService.search(searchRequest);
 
+        verify(elasticSearchClient, times(0)).update(any(CaseData.class), anySet());
 
         verifyNoMoreInteractions(elasticSearchClient);
     }
 
     @Test
-    public void ShouldCallCollaboratorsDeleteTopic() {
-
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(caseData);
-
-        caseDataService.deleteTopic(caseUUID, validCreateTopicRequest.getUuid().toString());
-
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(caseData);
-
-        verify(caseData, times(1)).removeTopic(validCreateTopicRequest.getUuid());
+    public void ShouldReturnCursorForFullPage() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(elasticSearchClient.searchPage(any(), eq(2), isNull())).thenReturn(new CasePage(List.of(first, second), new Object[]{1546300800000L, second.toString()}));
+        when(elasticSearchClient.searchPage(any(), eq(2), eq(new Object[]{1546300800000L, second.toString()}))).thenReturn(new CasePage(List.of(), null));
+
+        SearchRequest searchRequest = new SearchRequest(List.of("MIN"), null, null, null, null, null);
+        SearchPage page = caseDataService.searchPage(searchRequest, 5, null);
+        SearchPage next = caseDataService.searchPage(searchRequest, 5, page.getNext());
+
+        assertThat(page.getCaseUUIDs()).containsExactly(first, second);
+        assertThat(page.getNext()).isNotNull();
+        assertThat(next.getCaseUUIDs()).isEmpty();
+        assertThat(next.getNext()).isNull();
+    }
 
-        verifyNoMoreInteractions(elasticSearchClient);
-        verifyNoMoreInteractions(caseData);
+    @Test(expected = ApplicationExceptions.BadRequestException.class)
+    public void ShouldRejectInvalidCursor() {
+        caseDataService.searchPage(new SearchRequest(List.of("MIN"), null, null, null, null, null), null, "not-a-cursor");
     }
 
     @Test
-    public void ShouldCreateNewIfNotFoundDeleteTopic() {
-
-        when(elasticSearchClient.findById(caseUUID)).thenReturn(new CaseData(caseUUID));
-
-        caseDataService.deleteTopic(caseUUID, validCreateTopicRequest.getUuid().toString());
+    public void ShouldStreamAllPages() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(elasticSearchClient.searchPage(any(), eq(2), isNull())).thenReturn(new CasePage(List.of(first, second), new Object[]{1L, second.toString()}));
+        when(elasticSearchClient.searchPage(any(), eq(2), eq(new Object[]{1L, second.toString()}))).thenReturn(new CasePage(List.of(third), null));
+
+        List<UUID> results = new ArrayList<>();
+        long count = caseDataService.searchAll(new SearchRequest(List.of("MIN"), null, null, null, null, null), results::addAll);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(results).containsExactly(first, second, third);
+    }
 
-        verify(elasticSearchClient, times(1)).findById(caseUUID);
-        verify(elasticSearchClient, times(1)).update(any(CaseData.class));
+    @Test
+    public void ShouldReturnBatchResultsInRequestOrder() {
+        UUID caseUUID = UUID.randomUUID();
+        when(elasticSearchClient.multiSearch(anyList(), eq(10))).thenReturn(List.of(
+                new MultiSearchResult(Set.of(caseUUID), null),
+                new MultiSearchResult(null, "failed")));
+
+        List<BatchSearchResult> results = caseDataService.searchBatch(List.of(
+                new SearchRequest(List.of("MIN"), null, null, null, null, null),
+                new SearchRequest(),
+                new SearchRequest(List.of("TRO"), null, null, null, null, null)));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).getCaseUUIDs()).containsExactly(caseUUID);
+        assertThat(results.get(1).getCaseUUIDs()).isEmpty();
+        assertThat(results.get(2).getError()).isEqualTo("failed");
+        verify(elasticSearchClient, times(1)).multiSearch(anyList(), eq(10));
+    }
 
-        verifyNoMoreInteractions(elasticSearchClient);
+    @Test(expected = ApplicationExceptions.BadRequestException.class)
+    public void ShouldRejectOversizedBatch() {
+        caseDataService.searchBatch(List.of(new SearchRequest(), new SearchRequest(), new SearchRequest(), new SearchRequest()));
     }
 
     @Test
-    public void ShouldNotSearchIfNoParams() {
+    public void ShouldCountWithMonthlyHistogramByDefault() {
+        CaseFacets facets = new CaseFacets(3, 2, 1, Map.of("MIN", 3L), Map.of("2019-01-01", 3L));
+        when(elasticSearchClient.facets(any(), eq(DateHistogramInterval.MONTH), anyInt())).thenReturn(facets);
 
-        SearchRequest searchRequest = new SearchRequest();
-        caseDataService.search(searchRequest);
+        SearchFacets result = caseDataService.facets(new SearchRequest(List.of("MIN"), null, null, null, null, null), null);
 
-        verify(elasticSearchClient, times(0)).update(any(CaseData.class));
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getOpen()).isEqualTo(2);
+        assertThat(result.getCompleted()).isEqualTo(1);
+        assertThat(result.getCaseTypes()).containsEntry("MIN", 3L);
+        assertThat(result.getDateReceived()).containsEntry("2019-01-01", 3L);
+    }
 
-        verifyNoMoreInteractions(elasticSearchClient);
+    @Test(expected = ApplicationExceptions.BadRequestException.class)
+    public void ShouldRejectUnsupportedInterval() {
+        caseDataService.facets(new SearchRequest(), "fortnight");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.digital.ho.hocs.search.api.dto.CorrespondentSuggestion;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.CorrespondentMatch;
+import uk.gov.digital.ho.hocs.search.client.elasticsearchclient.ElasticSearchClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CorrespondentTypeaheadTest {
+
+    @Mock
+    private ElasticSearchClient elasticSearchClient;
+
+    private CorrespondentTypeahead typeahead;
+
+    @Before
+    public void setup() {
+        typeahead = new CorrespondentTypeahead(elasticSearchClient, 2, 5, 10, 60000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void shouldServeRepeatedPrefixFromCache() {
+        List<CorrespondentMatch> matches = new ArrayList<>(List.of(
+                new CorrespondentMatch("Alex Smith", UUID.randomUUID()),
+                new CorrespondentMatch("Alex Smithers", UUID.randomUUID()),
+                new CorrespondentMatch("Alexa Smyth", UUID.randomUUID())));
+        when(elasticSearchClient.suggestCorrespondents("alex sm", 10)).thenReturn(matches);
+
+        List<CorrespondentSuggestion> first = typeahead.suggest("  Alex, SM", null);
+        List<CorrespondentSuggestion> second = typeahead.suggest("alex sm", null);
+
+        assertThat(first).hasSize(2);
+        assertThat(second).isSameAs(first);
+        verify(elasticSearchClient, times(1)).suggestCorrespondents("alex sm", 10);
+    }
+
+    @Test
+    public void shouldSuggestEachNameOnceFromTheFirstCase() {
+        UUID first = UUID.randomUUID();
+        when(elasticSearchClient.suggestCorrespondents("alex", 10)).thenReturn(List.of(
+                new CorrespondentMatch("Alex Smith", first),
+                new CorrespondentMatch("alex  SMITH", UUID.randomUUID()),
+                new CorrespondentMatch("Alex Smith", UUID.randomUUID()),
+                new CorrespondentMatch("Alex O'Brien", UUID.randomUUID())));
+
+        List<CorrespondentSuggestion> suggestions = typeahead.suggest("alex", null);
+
+        assertThat(suggestions).extracting(CorrespondentSuggestion::getFullname).containsExactly("Alex Smith", "Alex O'Brien");
+        assertThat(suggestions.get(0).getCaseUUID()).isEqualTo(first);
+    }
+
+    @Test
+    public void shouldNotSearchForBlankPrefix() {
+        assertThat(typeahead.suggest(" - ", null)).isEmpty();
+
+        verifyZeroInteractions(elasticSearchClient);
+    }
+}
@@ -37,7 +37,7 @@ public class HocsQueryBuilderTest {
         HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(bqb);
         hocsQueryBuilder.caseTypes(caseTypes);
 
-        Mockito.verify(bqb).must(any(QueryBuilder.class));
+        Mockito.verify(bqb).filter(any(QueryBuilder.class));
 
         assertThat(bqb.toString()).contains("ANYTYPE");
     }
@@ -68,7 +68,7 @@ public class HocsQueryBuilderTest {
         HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(bqb);
         hocsQueryBuilder.correspondent(correspondent);
 
-        Mockito.verify(bqb).must(any(QueryBuilder.class));
+        Mockito.verify(bqb).filter(any(QueryBuilder.class));
 
         assertThat(bqb.toString()).contains("MYNAME");
     }
@@ -99,7 +99,7 @@ public class HocsQueryBuilderTest {
         HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(bqb);
         hocsQueryBuilder.topic(topic);
 
-        Mockito.verify(bqb).must(any(QueryBuilder.class));
+        Mockito.verify(bqb).filter(any(QueryBuilder.class));
 
         assertThat(bqb.toString()).contains("MYNAME");
     }
@@ -131,7 +131,7 @@ public class HocsQueryBuilderTest {
         HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(bqb);
         hocsQueryBuilder.dataFields(data);
 
-        Mockito.verify(bqb).must(any(QueryBuilder.class));
+        Mockito.verify(bqb).filter(any(QueryBuilder.class));
 
         assertThat(bqb.toString()).contains("dataKey");
         assertThat(bqb.toString()).contains("dataValue");
@@ -174,7 +174,7 @@ public class HocsQueryBuilderTest {
         HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(bqb);
         hocsQueryBuilder.activeOnlyFlag(activeOnly);
 
-        Mockito.verify(bqb).must(any(QueryBuilder.class));
+        Mockito.verify(bqb).filter(any(QueryBuilder.class));
 
     }
 
@@ -194,7 +194,7 @@ public class HocsQueryBuilderTest {
         HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(bqb);
         hocsQueryBuilder.dateRange(dateRangeDto);
 
-        Mockito.verify(bqb).must(any(QueryBuilder.class));
+        Mockito.verify(bqb).filter(any(QueryBuilder.class));
 
         assertThat(bqb.toString()).contains("fromDate");
         assertThat(bqb.toString()).contains("toDate");
@@ -207,7 +207,7 @@ public class HocsQueryBuilderTest {
         HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(bqb);
         hocsQueryBuilder.dateRange(dateRangeDto);
 
-        Mockito.verify(bqb).must(any(QueryBuilder.class));
+        Mockito.verify(bqb).filter(any(QueryBuilder.class));
 
         assertThat(bqb.toString()).contains("toDate");
     }
@@ -219,7 +219,7 @@ public class HocsQueryBuilderTest {
         HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(bqb);
         hocsQueryBuilder.dateRange(dateRangeDto);
 
-        Mockito.verify(bqb).must(any(QueryBuilder.class));
+        Mockito.verify(bqb).filter(any(QueryBuilder.class));
 
         assertThat(bqb.toString()).contains("toDate");
     }
@@ -231,7 +231,7 @@ public class HocsQueryBuilderTest {
         HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(bqb);
         hocsQueryBuilder.dateRange(dateRangeDto);
 
-        Mockito.verify(bqb).must(any(QueryBuilder.class));
+        Mockito.verify(bqb).filter(any(QueryBuilder.class));
 
         assertThat(bqb.toString()).contains("fromDate");
     }
@@ -243,7 +243,7 @@ public class HocsQueryBuilderTest {
         HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(bqb);
         hocsQueryBuilder.dateRange(dateRangeDto);
 
-        Mockito.verify(bqb).must(any(QueryBuilder.class));
+        Mockito.verify(bqb).filter(any(QueryBuilder.class));
 
         assertThat(bqb.toString()).contains("fromDate");
     }
@@ -256,4 +256,30 @@ public class HocsQueryBuilderTest {
 
         Mockito.verifyNoMoreInteractions(bqb);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void ShouldBuildFilterOnlyQuery() {
+        List<String> caseTypes = new ArrayList<>();
+        caseTypes.add("ANYTYPE");
+
+        HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(QueryBuilders.boolQuery());
+        hocsQueryBuilder.caseTypes(caseTypes);
+        hocsQueryBuilder.correspondent("MYNAME");
+        hocsQueryBuilder.activeOnlyFlag(true);
+        BoolQueryBuilder query = hocsQueryBuilder.build();
+
+        assertThat(query.must()).isEmpty();
+        assertThat(query.filter()).hasSize(4);
+        assertThat(query.filter()).contains(QueryBuilders.termQuery("completed", false), QueryBuilders.termQuery("deleted", false));
+    }
+
+    @Test
+    public void ShouldUseFlattenedFieldsWhenEnabled() {
+        HocsQueryBuilder hocsQueryBuilder = new HocsQueryBuilder(QueryBuilders.boolQuery(), true);
+        hocsQueryBuilder.correspondent("MYNAME");
+        hocsQueryBuilder.topic("MYTOPIC");
+        BoolQueryBuilder query = hocsQueryBuilder.build();
+
+        assertThat(query.toString()).contains("correspondentNames", "topicTexts").doesNotContain("nested");
+    }
+}
@@ -0,0 +1,116 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SearchCoalescerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+
+    private SearchRequestKey key = SearchRequestKey.of(new SearchRequest(List.of("MIN"), null, null, null, null, null));
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldShareInFlightSearch() throws Exception {
+        SearchCoalescer coalescer = new SearchCoalescer(5000, meterRegistry);
+        Set<UUID> results = Set.of(UUID.randomUUID());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger searches = new AtomicInteger();
+
+        Future<Set<UUID>> leader = executor.submit(() -> coalescer.execute(key, () -> {
+            searches.incrementAndGet();
+            started.countDown();
+            await(release);
+            return results;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Thread releaser = new Thread(() -> {
+            while (meterRegistry.counter("search.coalesce.requests", "role", "coalesced").count() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+        });
+        releaser.start();
+        Set<UUID> waited = coalescer.execute(key, () -> {
+            searches.incrementAndGet();
+            return Set.of();
+        });
+
+        assertThat(waited).isSameAs(results);
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(results);
+        assertThat(searches.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldTimeOutWaiter() throws Exception {
+        SearchCoalescer coalescer = new SearchCoalescer(50, meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> coalescer.execute(key, () -> {
+            started.countDown();
+            await(release);
+            return Set.of();
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> coalescer.execute(key, Set::of)).isInstanceOf(ApplicationExceptions.ResourceServerException.class);
+        assertThat(meterRegistry.counter("search.coalesce.timeouts").count()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    public void shouldSearchAgainOnceFlightCompletes() {
+        SearchCoalescer coalescer = new SearchCoalescer(5000, meterRegistry);
+        AtomicInteger searches = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            coalescer.execute(key, () -> {
+                searches.incrementAndGet();
+                return Set.of();
+            });
+        }
+
+        assertThat(searches.get()).isEqualTo(2);
+        assertThat(meterRegistry.counter("search.coalesce.requests", "role", "coalesced").count()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package uk.gov.digital.ho.hocs.search.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.digital.ho.hocs.search.api.dto.DateRangeDto;
+import uk.gov.digital.ho.hocs.search.api.dto.SearchRequest;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.gov.digital.ho.hocs.search.application.LogEvent.SEARCH_FAILED;
+
+public class SearchResultCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SearchResultCache cache;
+
+    private SearchRequestKey key = SearchRequestKey.of(new SearchRequest(List.of("MIN"), null, null, null, null, true));
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SearchResultCache(10, 60000, 60000, meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    public void shouldTreatEquivalentRequestsAsSameKey() {
+        SearchRequest first = new SearchRequest(List.of("MIN", "TRO"), new DateRangeDto("2019-01-01", null), null, "", Map.of("reference", "REF"), null);
+        SearchRequest second = new SearchRequest(List.of("TRO", "MIN"), new DateRangeDto("2019-01-01", ""), "", null, Map.of("reference", "REF", "other", ""), false);
+
+        assertThat(SearchRequestKey.of(first)).isEqualTo(SearchRequestKey.of(second));
+        assertThat(SearchRequestKey.of(first)).isNotEqualTo(key);
+    }
+
+    @Test
+    public void shouldServeCachedResultsUntilTheyExpire() throws InterruptedException {
+        SearchResultCache expiring = new SearchResultCache(10, 50, 50, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        expiring.get(key, () -> Set.of(UUID.randomUUID()));
+        expiring.get(key, () -> {
+            loads.incrementAndGet();
+            return Set.of();
+        });
+        Thread.sleep(100);
+        Set<UUID> reloaded = expiring.get(key, () -> {
+            loads.incrementAndGet();
+            return Set.of();
+        });
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(reloaded).isEmpty();
+        assertThat(meterRegistry.counter("search.result.cache.requests", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("search.result.cache.requests", "result", "miss").count()).isEqualTo(2);
+        expiring.shutdown();
+    }
+
+    @Test
+    public void shouldServeStaleResultsWhenSearchFails() {
+        SearchResultCache stale = new SearchResultCache(10, 0, 60000, meterRegistry);
+        UUID caseUUID = UUID.randomUUID();
+        stale.get(key, () -> Set.of(caseUUID));
+
+        Set<UUID> results = stale.get(key, () -> {
+            throw new ApplicationExceptions.ResourceServerException("down", SEARCH_FAILED);
+        });
+
+        assertThat(results).containsExactly(caseUUID);
+        assertThat(meterRegistry.counter("search.result.cache.requests", "result", "stale").count()).isEqualTo(1);
+        stale.shutdown();
+    }
+
+    @Test
+    public void shouldKeepNewestFirstOrderThroughCoalescerAndCache() {
+        SearchCoalescer coalescer = new SearchCoalescer(5000, meterRegistry);
+        Set<UUID> newestFirst = new LinkedHashSet<>();
+        for (int i = 0; i < 8; i++) {
+            newestFirst.add(UUID.randomUUID());
+        }
+
+        Set<UUID> loaded = cache.get(key, () -> coalescer.execute(key, () -> newestFirst));
+        Set<UUID> cached = cache.get(key, () -> coalescer.execute(key, Set::of));
+
+        assertThat(loaded).containsExactlyElementsOf(newestFirst);
+        assertThat(cached).containsExactlyElementsOf(newestFirst);
+    }
+
+    @Test
+    public void shouldEvictByWeight() {
+        for (int i = 0; i < 4; i++) {
+            cache.get(SearchRequestKey.of(new SearchRequest(List.of("TYPE" + i), null, null, null, null, null)), () -> Set.of(UUID.randomUUID(), UUID.randomUUID()));
+        }
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.weight()).isEqualTo(9);
+        assertThat(meterRegistry.counter("search.result.cache.evictions").count()).isEqualTo(1);
+    }
+}
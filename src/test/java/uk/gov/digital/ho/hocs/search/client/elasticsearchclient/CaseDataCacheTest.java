@@ -0,0 +1,85 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.Topic;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CaseDataCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CaseDataCache cache;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CaseDataCache(3, meterRegistry);
+    }
+
+    @Test
+    public void shouldReturnCopyOfCachedCase() {
+        CaseData caseData = caseData(UUID.randomUUID());
+        cache.put(caseData);
+
+        CaseData cached = cache.getAll(Collections.singleton(caseData.getCaseUUID())).get(caseData.getCaseUUID());
+        cached.complete();
+
+        assertThat(cached).isNotSameAs(caseData);
+        assertThat(cache.getAll(Collections.singleton(caseData.getCaseUUID())).get(caseData.getCaseUUID()).getCompleted()).isFalse();
+        assertThat(meterRegistry.counter("search.case.cache.requests", "result", "hit").count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotCacheUnsavedCase() {
+        CaseData caseData = new CaseData(UUID.randomUUID());
+        cache.put(caseData);
+
+        assertThat(cache.getAll(Collections.singleton(caseData.getCaseUUID()))).isEmpty();
+        assertThat(meterRegistry.counter("search.case.cache.requests", "result", "miss").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedByWeight() {
+        CaseData first = caseData(UUID.randomUUID());
+        CaseData second = caseData(UUID.randomUUID());
+        CaseData third = caseData(UUID.randomUUID());
+        third.addTopic(Topic.from(new CreateTopicRequest(UUID.randomUUID(), "Topic")));
+
+        cache.put(first);
+        cache.put(second);
+        cache.getAll(Collections.singleton(first.getCaseUUID()));
+        cache.put(third);
+
+        assertThat(cache.getAll(Arrays.asList(first.getCaseUUID(), second.getCaseUUID(), third.getCaseUUID())))
+                .containsOnlyKeys(first.getCaseUUID(), third.getCaseUUID());
+        assertThat(cache.weight()).isEqualTo(3);
+        assertThat(meterRegistry.counter("search.case.cache.evictions").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldInvalidateCase() {
+        CaseData caseData = caseData(UUID.randomUUID());
+        cache.put(caseData);
+
+        cache.invalidate(caseData.getCaseUUID());
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.weight()).isZero();
+    }
+
+    private static CaseData caseData(UUID caseUUID) {
+        CaseData caseData = new CaseData(caseUUID);
+        caseData.setSeqNo(1L);
+        caseData.setPrimaryTerm(1L);
+        return caseData;
+    }
+}
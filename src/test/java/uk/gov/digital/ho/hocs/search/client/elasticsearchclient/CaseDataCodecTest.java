@@ -0,0 +1,73 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.junit.Test;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
+import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+import uk.gov.digital.ho.hocs.search.domain.model.Topic;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CaseDataCodecTest {
+
+    private CaseDataCodec codec = new CaseDataCodec(new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT));
+
+    @Test
+    public void shouldRoundTripCaseData() {
+        CaseData caseData = caseData();
+
+        CaseData read = codec.read(new BytesArray(codec.write(caseData)));
+
+        assertThat(read.getCaseUUID()).isEqualTo(caseData.getCaseUUID());
+        assertThat(read.getDateReceived()).isEqualTo(caseData.getDateReceived());
+        assertThat(read.getCreated()).isEqualTo(caseData.getCreated());
+        assertThat(read.getAllTopics()).hasSize(1);
+        assertThat(read.getSeqNo()).isNull();
+    }
+
+    @Test
+    public void shouldReadSlicedBytes() {
+        byte[] source = codec.write(caseData());
+        byte[] padded = new byte[source.length + 4];
+        System.arraycopy(source, 0, padded, 2, source.length);
+
+        CaseData read = codec.read(new BytesArray(padded, 2, source.length));
+
+        assertThat(read.getType()).isEqualTo("MIN");
+    }
+
+    @Test
+    public void shouldWriteCompactJson() {
+        String json = new String(codec.write(caseData()), StandardCharsets.UTF_8);
+
+        assertThat(json).doesNotContain("\n");
+        assertThat(json).contains("\"dateReceived\":\"" + LocalDate.now() + "\"");
+    }
+
+    @Test
+    public void shouldWriteOnlyRequestedFields() {
+        String json = new String(codec.write(caseData(), Set.of("type", "primaryTopic")), StandardCharsets.UTF_8);
+
+        assertThat(json).isEqualTo("{\"type\":\"MIN\",\"primaryTopic\":null}");
+    }
+
+    private static CaseData caseData() {
+        CaseData caseData = new CaseData(UUID.randomUUID());
+        caseData.create(new CreateCaseRequest(UUID.randomUUID(), LocalDateTime.now(), "MIN", "REF", LocalDate.now().plusDays(1), LocalDate.now()));
+        caseData.addTopic(Topic.from(new CreateTopicRequest(UUID.randomUUID(), "Topic")));
+        return caseData;
+    }
+}
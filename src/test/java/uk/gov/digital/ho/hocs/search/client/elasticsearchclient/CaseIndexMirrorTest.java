@@ -0,0 +1,81 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.IndicesClient;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CaseIndexMirrorTest {
+
+    private static final String TARGET = "test-case-20190101000000";
+
+    private IndicesClient indicesClient;
+
+    private RestHighLevelClient client;
+
+    @Before
+    public void setup() {
+        client = mock(RestHighLevelClient.class);
+        indicesClient = mock(IndicesClient.class);
+        when(client.indices()).thenReturn(indicesClient);
+    }
+
+    @Test
+    public void shouldPublishTargetWhileMirroring() throws IOException {
+        CaseIndexMirror mirror = new CaseIndexMirror(client, "test", 60000);
+
+        mirror.start(TARGET);
+        mirror.stop();
+
+        List<AliasActions> actions = aliasActions(2);
+        assertThat(actions.get(0).actionType()).isEqualTo(AliasActions.Type.ADD);
+        assertThat(actions.get(0).indices()).containsExactly(TARGET);
+        assertThat(actions.get(0).aliases()).containsExactly("test-case-mirror");
+        assertThat(actions.get(1).actionType()).isEqualTo(AliasActions.Type.REMOVE);
+        assertThat(mirror.isActive()).isFalse();
+    }
+
+    @Test
+    public void shouldMirrorToTargetPublishedByAnotherInstance() throws IOException {
+        GetAliasesResponse published = mock(GetAliasesResponse.class);
+        when(published.getAliases()).thenReturn(Collections.singletonMap(TARGET, Collections.emptySet()));
+        when(indicesClient.existsAlias(any(GetAliasesRequest.class), any(RequestOptions.class))).thenReturn(true);
+        when(indicesClient.getAlias(any(GetAliasesRequest.class), any(RequestOptions.class))).thenReturn(published);
+        CaseIndexMirror mirror = new CaseIndexMirror(client, "test", 60000);
+
+        assertThat(mirror.getTarget()).isEqualTo(TARGET);
+        assertThat(mirror.isActive()).isTrue();
+        verify(indicesClient, times(1)).existsAlias(any(GetAliasesRequest.class), any(RequestOptions.class));
+    }
+
+    @Test
+    public void shouldCheckAgainAfterPollInterval() throws IOException {
+        CaseIndexMirror mirror = new CaseIndexMirror(client, "test", 0);
+
+        mirror.getTarget();
+        mirror.getTarget();
+
+        verify(indicesClient, times(2)).existsAlias(any(GetAliasesRequest.class), any(RequestOptions.class));
+    }
+
+    private List<AliasActions> aliasActions(int count) throws IOException {
+        ArgumentCaptor<IndicesAliasesRequest> captor = ArgumentCaptor.forClass(IndicesAliasesRequest.class);
+        verify(indicesClient, times(count)).updateAliases(captor.capture(), any(RequestOptions.class));
+        return captor.getAllValues().stream().map(request -> request.getAliasActions().get(0)).collect(Collectors.toList());
+    }
+}
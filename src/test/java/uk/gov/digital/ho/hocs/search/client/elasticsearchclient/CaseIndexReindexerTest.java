@@ -0,0 +1,166 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.IndicesClient;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CaseIndexReindexerTest {
+
+    private RestHighLevelClient client;
+
+    private IndicesClient indicesClient;
+
+    private IndicesClient mirrorIndicesClient;
+
+    private CaseIndexMirror mirror;
+
+    private CaseDataCache cache;
+
+    private CaseIndexReindexer reindexer;
+
+    @Before
+    public void setup() throws IOException {
+        client = mock(RestHighLevelClient.class);
+        indicesClient = mock(IndicesClient.class);
+        when(client.indices()).thenReturn(indicesClient);
+        RestHighLevelClient mirrorClient = mock(RestHighLevelClient.class);
+        mirrorIndicesClient = mock(IndicesClient.class);
+        when(mirrorClient.indices()).thenReturn(mirrorIndicesClient);
+        mirror = spy(new CaseIndexMirror(mirrorClient, "test", 0));
+        cache = new CaseDataCache(100, new SimpleMeterRegistry());
+        reindexer = new CaseIndexReindexer(client, mirror, new CaseIndices(client, "test", "none", 12, "none", "", false), cache, 1, 100, "1s", 1);
+
+        GetAliasesResponse aliases = mock(GetAliasesResponse.class);
+        when(aliases.getAliases()).thenReturn(Collections.singletonMap("test-case-old", Collections.emptySet()));
+        when(indicesClient.existsAlias(any(GetAliasesRequest.class), any(RequestOptions.class))).thenReturn(true);
+        when(indicesClient.getAlias(any(GetAliasesRequest.class), any(RequestOptions.class))).thenReturn(aliases);
+
+        SearchHit hit = mock(SearchHit.class);
+        when(hit.getId()).thenReturn(UUID.randomUUID().toString());
+        when(hit.getVersion()).thenReturn(9L);
+        when(hit.getSourceRef()).thenReturn(new BytesArray("{\"type\":\"MIN\"}"));
+        when(hit.getSourceAsMap()).thenReturn(Collections.singletonMap("type", "MIN"));
+        SearchResponse count = searchResponse(hit);
+        SearchResponse scroll = searchResponse(hit);
+        SearchResponse exhausted = searchResponse();
+        when(client.search(any(), any(RequestOptions.class))).thenReturn(count, scroll);
+        when(client.scroll(any(SearchScrollRequest.class), any(RequestOptions.class))).thenReturn(exhausted);
+        BulkResponse bulkResponse = mock(BulkResponse.class);
+        when(bulkResponse.getItems()).thenReturn(new BulkItemResponse[0]);
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(bulkResponse);
+    }
+
+    @After
+    public void tearDown() {
+        reindexer.shutdown();
+    }
+
+    @Test
+    public void shouldRefreshSourcesAfterMirroringStartsAndBeforeCopying() throws Exception {
+        awaitCompletion(reindexer.start());
+
+        InOrder inOrder = inOrder(mirror, indicesClient, client);
+        inOrder.verify(mirror).start(any());
+        ArgumentCaptor<RefreshRequest> refresh = ArgumentCaptor.forClass(RefreshRequest.class);
+        inOrder.verify(indicesClient).refresh(refresh.capture(), any(RequestOptions.class));
+        assertThat(refresh.getValue().indices()).containsExactly("test-case-old");
+        inOrder.verify(client, times(2)).search(any(SearchRequest.class), any(RequestOptions.class));
+        inOrder.verify(client).bulk(any(), any(RequestOptions.class));
+        inOrder.verify(indicesClient).updateAliases(any(IndicesAliasesRequest.class), any(RequestOptions.class));
+        inOrder.verify(mirror).stop();
+    }
+
+    @Test
+    public void shouldCopyDocumentsWithTheirVersion() throws Exception {
+        awaitCompletion(reindexer.start());
+
+        ArgumentCaptor<BulkRequest> captor = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(client).bulk(captor.capture(), any(RequestOptions.class));
+        IndexRequest copy = (IndexRequest) captor.getValue().requests().get(0);
+        assertThat(copy.index()).startsWith("test-case-");
+        assertThat(copy.versionType()).isEqualTo(VersionType.EXTERNAL);
+        assertThat(copy.version()).isEqualTo(9);
+        assertThat(reindexer.progress().getCopied()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldClearCachedCasesWhenAliasMoves() throws Exception {
+        CaseData caseData = new CaseData(UUID.randomUUID());
+        caseData.setSeqNo(1L);
+        caseData.setPrimaryTerm(1L);
+        caseData.setIndex("test-case-old");
+        cache.put(caseData);
+
+        awaitCompletion(reindexer.start());
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void shouldNotReindexPartitionedIndices() {
+        CaseIndexReindexer partitioned = new CaseIndexReindexer(client, mirror, new CaseIndices(client, "test", "monthly", 12, "none", "", false), cache, 1, 100, "1s", 1);
+
+        assertThat(partitioned.start().getState()).isEqualTo(ReindexProgress.State.FAILED);
+        verifyZeroInteractions(indicesClient);
+        partitioned.shutdown();
+    }
+
+    @Test
+    public void shouldNotStartWhileAnotherInstanceIsReindexing() throws IOException {
+        GetAliasesResponse published = mock(GetAliasesResponse.class);
+        when(published.getAliases()).thenReturn(Collections.singletonMap("test-case-20190101000000", Collections.emptySet()));
+        when(mirrorIndicesClient.existsAlias(any(GetAliasesRequest.class), any(RequestOptions.class))).thenReturn(true);
+        when(mirrorIndicesClient.getAlias(any(GetAliasesRequest.class), any(RequestOptions.class))).thenReturn(published);
+
+        ReindexProgress progress = reindexer.start();
+
+        assertThat(progress.getState()).isEqualTo(ReindexProgress.State.FAILED);
+        assertThat(progress.getError()).contains("test-case-20190101000000");
+        verifyZeroInteractions(indicesClient);
+    }
+
+    private void awaitCompletion(ReindexProgress started) throws InterruptedException {
+        assertThat(started.getTarget()).startsWith("test-case-");
+        for (int i = 0; i < 100 && reindexer.progress().getState() == ReindexProgress.State.RUNNING; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(reindexer.progress().getState()).isEqualTo(ReindexProgress.State.COMPLETED);
+    }
+
+    private static SearchResponse searchResponse(SearchHit... hits) {
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(hits, hits.length, 1.0f));
+        when(response.getScrollId()).thenReturn("scroll");
+        return response;
+    }
+}
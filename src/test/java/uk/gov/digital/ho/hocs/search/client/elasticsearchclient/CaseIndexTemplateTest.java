@@ -0,0 +1,92 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class CaseIndexTemplateTest {
+
+    private CaseIndexTemplate template = new CaseIndexTemplate(new ObjectMapper(), mock(RestHighLevelClient.class), new SimpleMeterRegistry(), indices(), "1s", 5, 1, 2, true, false, true);
+
+    @Test
+    public void shouldLoadStrictMapping() {
+        assertThat(template.getVersion()).isPositive();
+        assertThat(template.getMapping()).containsEntry("dynamic", "strict");
+    }
+
+    @Test
+    public void shouldTokeniseNamesLikeTypeaheadPrefixes() {
+        assertThat(template.getSettings().get("index.analysis.tokenizer.name_tokens.pattern")).isEqualTo(CorrespondentNames.SEPARATOR_PATTERN);
+    }
+
+    @Test
+    public void shouldReportNoDriftForTemplateMapping() {
+        assertThat(CaseIndexTemplate.drift(template.getMapping(), template.getMapping())).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldReportDynamicallyMappedFields() {
+        Map<String, Object> actual = new HashMap<>(template.getMapping());
+        Map<String, Object> properties = new HashMap<>((Map<String, Object>) actual.get("properties"));
+        properties.put("type", Map.of("type", "text", "fields", Map.of("keyword", Map.of("type", "keyword", "ignore_above", 256))));
+        properties.put("extra", Map.of("type", "long"));
+        properties.remove("completed");
+        actual.put("properties", properties);
+        actual.remove("dynamic");
+
+        List<String> drift = CaseIndexTemplate.drift(template.getMapping(), actual);
+
+        assertThat(drift).containsExactlyInAnyOrder(
+                "dynamic expected strict but was null",
+                "type.type expected keyword but was text",
+                "type.eager_global_ordinals expected true but was null",
+                "type.keyword is not in the template",
+                "completed is missing",
+                "extra is not in the template");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldSortIndexWithoutNestedFields() {
+        CaseIndexTemplate sorted = new CaseIndexTemplate(new ObjectMapper(), mock(RestHighLevelClient.class), new SimpleMeterRegistry(), indices(), "1s", 5, 1, 2, true, true, true);
+        Map<String, Object> properties = (Map<String, Object>) sorted.getMapping().get("properties");
+
+        assertThat(sorted.getSettings().getAsList("index.sort.field")).containsExactly("dateReceived", "caseUUID");
+        assertThat(sorted.getSettings().getAsList("index.sort.order")).containsExactly("desc", "asc");
+        assertThat((Map<String, Object>) properties.get("currentCorrespondents")).doesNotContainKey("type");
+        assertThat(template.getSettings().getAsList("index.sort.field")).isEmpty();
+        assertThat((Map<String, Object>) ((Map<String, Object>) template.getMapping().get("properties")).get("currentCorrespondents")).containsEntry("type", "nested");
+    }
+
+    @Test
+    public void shouldSpreadRoutedCaseTypesOverShards() {
+        CaseIndices routed = new CaseIndices(mock(RestHighLevelClient.class), "test", "none", 12, "type", "MIN", false);
+        CaseIndexTemplate partitioned = new CaseIndexTemplate(new ObjectMapper(), mock(RestHighLevelClient.class), new SimpleMeterRegistry(), routed, "1s", 5, 1, 2, true, false, true);
+
+        assertThat(partitioned.getSettings().get("index.routing_partition_size")).isEqualTo("2");
+        assertThat(partitioned.getMapping()).containsEntry("_routing", Map.of("required", true));
+        assertThat(template.getSettings().get("index.routing_partition_size")).isNull();
+        assertThatThrownBy(() -> new CaseIndexTemplate(new ObjectMapper(), mock(RestHighLevelClient.class), new SimpleMeterRegistry(), routed, "1s", 2, 1, 2, true, false, true))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldRequireFlattenedSearchForSortedIndex() {
+        assertThatThrownBy(() -> new CaseIndexTemplate(new ObjectMapper(), mock(RestHighLevelClient.class), new SimpleMeterRegistry(), indices(), "1s", 5, 1, 2, true, true, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CaseIndices indices() {
+        return new CaseIndices(mock(RestHighLevelClient.class), "test", "none", 12, "none", "", false);
+    }
+}
@@ -0,0 +1,120 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class CaseIndicesTest {
+
+    private CaseIndices monthly = new CaseIndices(mock(RestHighLevelClient.class), "test", "monthly", 12, "none", "", false);
+
+    private CaseIndices none = new CaseIndices(mock(RestHighLevelClient.class), "test", "none", 12, "none", "", false);
+
+    private CaseIndices routed = new CaseIndices(mock(RestHighLevelClient.class), "test", "none", 12, "type", "MIN,TRO", false);
+
+    private CaseIndices writeRouted = new CaseIndices(mock(RestHighLevelClient.class), "test", "none", 12, "write", "MIN,TRO", false);
+
+    private CaseIndices tiered = new CaseIndices(mock(RestHighLevelClient.class), "test", "none", 12, "none", "", true);
+
+    @Test
+    public void shouldWriteToMonthlyPartitions() {
+        assertThat(monthly.writeIndex(LocalDate.of(2019, 3, 31))).isEqualTo("test-case-2019-03");
+        assertThat(monthly.writeIndex(null)).isEqualTo("test-case-undated");
+        assertThat(none.writeIndex(LocalDate.of(2019, 3, 31))).isEqualTo("test-case");
+    }
+
+    @Test
+    public void shouldSearchOnlyPartitionsInDateRange() {
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+                .filter(QueryBuilders.termsQuery("type", "MIN"))
+                .filter(QueryBuilders.rangeQuery("dateReceived").from("2018-11-15").to("2019-01-02"));
+
+        assertThat(monthly.searchIndices(query)).containsExactly("test-case-2018-11", "test-case-2018-12", "test-case-2019-01");
+        assertThat(none.searchIndices(query)).containsExactly("test-case");
+    }
+
+    @Test
+    public void shouldSearchAliasForOpenOrWideRanges() {
+        BoolQueryBuilder open = QueryBuilders.boolQuery().filter(QueryBuilders.rangeQuery("dateReceived").from("2019-01-01"));
+        BoolQueryBuilder wide = QueryBuilders.boolQuery().filter(QueryBuilders.rangeQuery("dateReceived").from("2017-01-01").to("2019-01-01"));
+        BoolQueryBuilder relative = QueryBuilders.boolQuery().filter(QueryBuilders.rangeQuery("dateReceived").from("now-1M").to("now"));
+
+        assertThat(monthly.searchIndices(open)).containsExactly("test-case");
+        assertThat(monthly.searchIndices(wide)).containsExactly("test-case");
+        assertThat(monthly.searchIndices(relative)).containsExactly("test-case");
+        assertThat(monthly.searchIndices(QueryBuilders.boolQuery())).containsExactly("test-case");
+    }
+
+    @Test
+    public void shouldRouteByCaseType() {
+        assertThat(routed.routing("MIN")).isEqualTo("MIN");
+        assertThat(writeRouted.routing("MIN")).isEqualTo("MIN");
+        assertThat(none.routing("MIN")).isNull();
+    }
+
+    @Test
+    public void shouldRouteUntypedCasesTogether() {
+        assertThat(routed.routing(null)).isEqualTo("untyped");
+        assertThat(none.routing(null)).isNull();
+    }
+
+    @Test
+    public void shouldLocateTypedCasesOnlyUnderTheirOwnRouting() {
+        assertThat(routed.routings("MIN")).containsExactly(null, "untyped", "MIN");
+        assertThat(routed.routings(null)).containsExactlyInAnyOrder(null, "untyped", "MIN", "TRO");
+        assertThat(none.routings("MIN")).containsExactly((String) null);
+    }
+
+    @Test
+    public void shouldRouteSearchesOnlyWhenCaseTypesAreFiltered() {
+        BoolQueryBuilder typed = QueryBuilders.boolQuery().filter(QueryBuilders.termsQuery("type", "MIN", "TRO", "MIN"));
+        BoolQueryBuilder untyped = QueryBuilders.boolQuery().filter(QueryBuilders.termQuery("deleted", false));
+
+        assertThat(routed.searchRouting(typed)).isEqualTo("MIN,TRO");
+        assertThat(routed.searchRouting(untyped)).isNull();
+        assertThat(writeRouted.searchRouting(typed)).isNull();
+        assertThat(none.searchRouting(typed)).isNull();
+    }
+
+    @Test
+    public void shouldDetectMovedCases() {
+        assertThat(routed.moved("test-case-1", null, "test-case", "MIN")).isTrue();
+        assertThat(routed.moved("test-case-1", "MIN", "test-case", "MIN")).isFalse();
+        assertThat(routed.moved(null, null, "test-case", "MIN")).isFalse();
+        assertThat(monthly.moved("test-case-2019-01", null, "test-case-2019-02", null)).isTrue();
+    }
+
+    @Test
+    public void shouldSearchOnlyHotIndexForActiveCases() {
+        BoolQueryBuilder active = QueryBuilders.boolQuery().filter(QueryBuilders.termQuery("completed", false)).filter(QueryBuilders.termQuery("deleted", false));
+        BoolQueryBuilder all = QueryBuilders.boolQuery().filter(QueryBuilders.termQuery("deleted", false));
+
+        assertThat(tiered.searchIndices(active)).containsExactly("test-case");
+        assertThat(tiered.searchIndices(all)).containsExactly("test-case", "test-case-cold");
+        assertThat(none.searchIndices(all)).containsExactly("test-case");
+    }
+
+    @Test
+    public void shouldKeepTieredCasesInTheirTier() {
+        LocalDate received = LocalDate.of(2019, 3, 31);
+
+        assertThat(tiered.targetIndex("test-case-cold", received)).isEqualTo("test-case-cold");
+        assertThat(tiered.targetIndex("test-case-archive", received)).isEqualTo("test-case-archive");
+        assertThat(tiered.targetIndex("test-case-20190101000000", received)).isEqualTo("test-case");
+        assertThat(none.targetIndex("test-case-cold", received)).isEqualTo("test-case");
+    }
+
+    @Test
+    public void shouldRejectUnknownPartitioning() {
+        assertThatThrownBy(() -> new CaseIndices(mock(RestHighLevelClient.class), "test", "weekly", 12, "none", "", false)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CaseIndices(mock(RestHighLevelClient.class), "test", "none", 12, "reference", "MIN,TRO", false)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CaseIndices(mock(RestHighLevelClient.class), "test", "none", 12, "type", " ", false)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
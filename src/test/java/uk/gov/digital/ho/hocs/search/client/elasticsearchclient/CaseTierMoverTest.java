@@ -0,0 +1,274 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CaseTierMoverTest {
+
+    private CaseDataCodec codec = new CaseDataCodec(new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+    private RestHighLevelClient client;
+
+    private CaseDataCache cache;
+
+    private CaseIndexMirror mirror;
+
+    @Before
+    public void setup() throws IOException {
+        client = mock(RestHighLevelClient.class);
+        cache = new CaseDataCache(100, new SimpleMeterRegistry());
+        mirror = mock(CaseIndexMirror.class);
+        SearchResponse exhausted = searchResponse();
+        when(client.scroll(any(SearchScrollRequest.class), any(RequestOptions.class))).thenReturn(exhausted);
+    }
+
+    @Test
+    public void shouldCopyCompletedCaseWithItsVersionAndRemoveIt() throws IOException {
+        SearchHit hit = hit("test-case", "MIN", false, 7);
+        SearchResponse found = searchResponse(hit);
+        when(client.search(any(), any(RequestOptions.class))).thenReturn(found);
+        BulkResponse copied = bulkResponse(succeeded(hit));
+        BulkResponse deleted = bulkResponse(succeeded(hit));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(copied, deleted);
+
+        long moved = mover("archive").moveAll();
+
+        assertThat(moved).isEqualTo(1);
+        List<BulkRequest> requests = bulkRequests(2);
+        IndexRequest copy = (IndexRequest) requests.get(0).requests().get(0);
+        assertThat(copy.index()).isEqualTo("test-case-cold");
+        assertThat(copy.versionType()).isEqualTo(VersionType.EXTERNAL);
+        assertThat(copy.version()).isEqualTo(7);
+        DeleteRequest removed = (DeleteRequest) requests.get(1).requests().get(0);
+        assertThat(removed.index()).isEqualTo("test-case");
+        assertThat(removed.version()).isEqualTo(7);
+    }
+
+    @Test
+    public void shouldPassRoutingThroughToCopyAndRemoval() throws IOException {
+        SearchHit hit = hit("test-case", "MIN", true, 3);
+        SearchResponse found = searchResponse(hit);
+        when(client.search(any(), any(RequestOptions.class))).thenReturn(found);
+        BulkResponse copied = bulkResponse(succeeded(hit));
+        BulkResponse deleted = bulkResponse(succeeded(hit));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(copied, deleted);
+
+        mover("archive").moveAll();
+
+        List<BulkRequest> requests = bulkRequests(2);
+        assertThat(requests.get(0).requests().get(0).index()).isEqualTo("test-case-archive");
+        assertThat(requests.get(0).requests().get(0).routing()).isEqualTo("MIN");
+        assertThat(requests.get(1).requests().get(0).routing()).isEqualTo("MIN");
+    }
+
+    @Test
+    public void shouldRemoveCopyWhenCaseChangesWhileBeingMoved() throws IOException {
+        SearchHit hit = hit("test-case", "MIN", false, 7);
+        SearchResponse found = searchResponse(hit);
+        when(client.search(any(), any(RequestOptions.class))).thenReturn(found);
+        BulkResponse copied = bulkResponse(succeeded(hit));
+        BulkResponse conflicted = bulkResponse(failed(hit, RestStatus.CONFLICT));
+        BulkResponse reverted = bulkResponse(succeeded(hit));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(copied, conflicted, reverted);
+
+        long moved = mover("archive").moveAll();
+
+        assertThat(moved).isZero();
+        DeleteRequest revert = (DeleteRequest) bulkRequests(3).get(2).requests().get(0);
+        assertThat(revert.index()).isEqualTo("test-case-cold");
+        assertThat(revert.routing()).isEqualTo("MIN");
+        assertThat(revert.version()).isEqualTo(7);
+    }
+
+    @Test
+    public void shouldRemoveCaseWhenEarlierRunAlreadyCopiedIt() throws IOException {
+        SearchHit hit = hit("test-case", null, false, 7);
+        SearchResponse found = searchResponse(hit);
+        when(client.search(any(), any(RequestOptions.class))).thenReturn(found);
+        BulkResponse copied = bulkResponse(failed(hit, RestStatus.CONFLICT));
+        BulkResponse deleted = bulkResponse(succeeded(hit));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(copied, deleted);
+
+        long moved = mover("archive").moveAll();
+
+        assertThat(moved).isEqualTo(1);
+        assertThat(bulkRequests(2).get(1).requests().get(0)).isInstanceOf(DeleteRequest.class);
+    }
+
+    @Test
+    public void shouldLeaveDeletedStubWhenPurging() throws IOException {
+        SearchHit hit = hit("test-case-cold", "MIN", true, 4);
+        SearchResponse found = searchResponse(hit);
+        when(client.search(any(), any(RequestOptions.class))).thenReturn(found);
+        BulkResponse copied = bulkResponse(succeeded(hit));
+        BulkResponse deleted = bulkResponse(succeeded(hit));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(copied, deleted);
+
+        long moved = mover("purge").moveAll();
+
+        assertThat(moved).isEqualTo(1);
+        List<BulkRequest> requests = bulkRequests(2);
+        IndexRequest tombstone = (IndexRequest) requests.get(0).requests().get(0);
+        assertThat(tombstone.index()).isEqualTo("test-case-archive");
+        assertThat(tombstone.version()).isEqualTo(4);
+        CaseData stub = codec.read(tombstone.source());
+        assertThat(stub.getDeleted()).isTrue();
+        assertThat(stub.getType()).isEqualTo("MIN");
+        assertThat(stub.getReference()).isNull();
+        assertThat(requests.get(1).requests().get(0).index()).isEqualTo("test-case-cold");
+    }
+
+    @Test
+    public void shouldKeepCaseWhenCopyFails() throws IOException {
+        SearchHit hit = hit("test-case", null, false, 7);
+        SearchResponse found = searchResponse(hit);
+        when(client.search(any(), any(RequestOptions.class))).thenReturn(found);
+        BulkResponse failed = bulkResponse(failed(hit, RestStatus.SERVICE_UNAVAILABLE));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(failed);
+
+        long moved = mover("archive").moveAll();
+
+        assertThat(moved).isZero();
+        bulkRequests(1);
+    }
+
+    @Test
+    public void shouldNotMoveCasesWhileReindexing() throws IOException {
+        when(mirror.isActive()).thenReturn(true);
+
+        long moved = mover("archive").moveAll();
+
+        assertThat(moved).isZero();
+        verify(client, never()).search(any(), any(RequestOptions.class));
+        verify(client, never()).bulk(any(), any(RequestOptions.class));
+    }
+
+    @Test
+    public void shouldRemoveCopiesWhenReindexStartsDuringMove() throws IOException {
+        SearchHit hit = hit("test-case", "MIN", false, 7);
+        SearchResponse found = searchResponse(hit);
+        when(client.search(any(), any(RequestOptions.class))).thenReturn(found);
+        BulkResponse copied = bulkResponse(succeeded(hit));
+        BulkResponse reverted = bulkResponse(succeeded(hit));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(copied, reverted);
+        when(mirror.isActive()).thenReturn(false, false, true);
+
+        long moved = mover("archive").moveAll();
+
+        assertThat(moved).isZero();
+        DeleteRequest revert = (DeleteRequest) bulkRequests(2).get(1).requests().get(0);
+        assertThat(revert.index()).isEqualTo("test-case-cold");
+        assertThat(revert.version()).isEqualTo(7);
+    }
+
+    @Test
+    public void shouldOnlyScheduleMovesOnTheConfiguredInstance() {
+        CaseTierMover mover = new CaseTierMover(client, indices(), cache, codec, mirror, new SimpleMeterRegistry(), "archive", 10, 10, false);
+
+        mover.start();
+        mover.shutdown();
+
+        verifyZeroInteractions(client);
+    }
+
+    private CaseTierMover mover(String deleted) {
+        return new CaseTierMover(client, indices(), cache, codec, mirror, new SimpleMeterRegistry(), deleted, 60000, 10, true);
+    }
+
+    private CaseIndices indices() {
+        return new CaseIndices(client, "test", "none", 12, "none", "", true);
+    }
+
+    private List<BulkRequest> bulkRequests(int count) throws IOException {
+        ArgumentCaptor<BulkRequest> captor = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(client, times(count)).bulk(captor.capture(), any(RequestOptions.class));
+        return captor.getAllValues();
+    }
+
+    private SearchHit hit(String index, String routing, boolean deleted, long version) {
+        CaseData caseData = new CaseData(UUID.randomUUID());
+        caseData.setType("MIN");
+        caseData.setReference("MIN/0000001/19");
+        caseData.complete();
+        if (deleted) {
+            caseData.delete();
+        }
+        BytesArray source = new BytesArray(codec.write(caseData));
+        Map<String, Object> sourceAsMap = XContentHelper.convertToMap(source, false, XContentType.JSON).v2();
+        SearchHit hit = mock(SearchHit.class);
+        when(hit.getId()).thenReturn(caseData.getCaseUUID().toString());
+        when(hit.getIndex()).thenReturn(index);
+        when(hit.getVersion()).thenReturn(version);
+        when(hit.getSourceRef()).thenReturn(source);
+        when(hit.getSourceAsMap()).thenReturn(sourceAsMap);
+        when(hit.field("_routing")).thenReturn(routing == null ? null : new DocumentField("_routing", Collections.singletonList(routing)));
+        return hit;
+    }
+
+    private static SearchResponse searchResponse(SearchHit... hits) {
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(hits, hits.length, 1.0f));
+        when(response.getScrollId()).thenReturn("scroll");
+        return response;
+    }
+
+    private static BulkResponse bulkResponse(BulkItemResponse... items) {
+        BulkResponse response = mock(BulkResponse.class);
+        when(response.getItems()).thenReturn(items);
+        return response;
+    }
+
+    private static BulkItemResponse succeeded(SearchHit hit) {
+        String id = hit.getId();
+        BulkItemResponse item = mock(BulkItemResponse.class);
+        when(item.getId()).thenReturn(id);
+        return item;
+    }
+
+    private static BulkItemResponse failed(SearchHit hit, RestStatus status) {
+        String id = hit.getId();
+        BulkItemResponse.Failure failure = mock(BulkItemResponse.Failure.class);
+        when(failure.getStatus()).thenReturn(status);
+        BulkItemResponse item = mock(BulkItemResponse.class);
+        when(item.getId()).thenReturn(id);
+        when(item.isFailed()).thenReturn(true);
+        when(item.getFailure()).thenReturn(failure);
+        when(item.getFailureMessage()).thenReturn(status.name());
+        return item;
+    }
+}
@@ -0,0 +1,22 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CorrespondentNamesTest {
+
+    @Test
+    public void shouldMatchEachPrefixToDifferentToken() {
+        assertThat(CorrespondentNames.matches(List.of("sm", "al"), "Alex Smith")).isTrue();
+        assertThat(CorrespondentNames.matches(List.of("al", "al"), "Alex Smith")).isFalse();
+        assertThat(CorrespondentNames.matches(List.of("jo"), "Alex Smith")).isFalse();
+    }
+
+    @Test
+    public void shouldTokeniseOnPunctuation() {
+        assertThat(CorrespondentNames.tokens("O'Brien-Smith, J.")).containsExactly("o", "brien", "smith", "j");
+    }
+}
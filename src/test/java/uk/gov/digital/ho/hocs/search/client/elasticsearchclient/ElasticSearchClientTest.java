@@ -0,0 +1,600 @@
+package uk.gov.digital.ho.hocs.search.client.elasticsearchclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.IndicesClient;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import uk.gov.digital.ho.hocs.search.domain.exceptions.ApplicationExceptions;
+import uk.gov.digital.ho.hocs.search.domain.model.CaseData;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ElasticSearchClientTest {
+
+    private static final String MIRROR = "test-case-20190101000000";
+
+    private ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private CaseDataCodec codec = new CaseDataCodec(objectMapper);
+
+    private RestHighLevelClient client;
+
+    private IndicesClient indicesClient;
+
+    private CaseDataCache cache;
+
+    private CaseIndexMirror mirror;
+
+    @Before
+    public void setup() {
+        client = mock(RestHighLevelClient.class);
+        indicesClient = mock(IndicesClient.class);
+        when(client.indices()).thenReturn(indicesClient);
+        cache = new CaseDataCache(100, new SimpleMeterRegistry());
+        RestHighLevelClient mirrorClient = mock(RestHighLevelClient.class);
+        when(mirrorClient.indices()).thenReturn(mock(IndicesClient.class));
+        mirror = new CaseIndexMirror(mirrorClient, "test", 60000);
+    }
+
+    @Test
+    public void shouldCreateNewCasesOnce() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", false));
+        CaseData caseData = caseData("MIN");
+        BulkResponse bulkResponse = bulkResponse(indexed("test-case", caseData, 1, 1));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(bulkResponse);
+
+        elasticSearchClient.saveAll(Collections.singletonList(caseData));
+
+        List<DocWriteRequest<?>> requests = bulkRequests(1).get(0).requests();
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).index()).isEqualTo("test-case");
+        assertThat(requests.get(0).opType()).isEqualTo(DocWriteRequest.OpType.CREATE);
+    }
+
+    @Test
+    public void shouldMirrorSavedCasesWhileReindexing() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", false));
+        CaseData caseData = caseData("MIN");
+        BulkResponse bulkResponse = bulkResponse(indexed("test-case", caseData, 1, 7));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(bulkResponse);
+        mirror.start(MIRROR);
+
+        elasticSearchClient.saveAll(Collections.singletonList(caseData));
+
+        IndexRequest mirrored = (IndexRequest) bulkRequests(2).get(1).requests().get(0);
+        assertThat(mirrored.index()).isEqualTo(MIRROR);
+        assertThat(mirrored.id()).isEqualTo(caseData.getCaseUUID().toString());
+        assertThat(mirrored.versionType()).isEqualTo(VersionType.EXTERNAL);
+        assertThat(mirrored.version()).isEqualTo(7);
+        assertThat(mirror.getMirrored()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotMirrorFailedSaves() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", false));
+        CaseData caseData = caseData("MIN");
+        BulkResponse bulkResponse = bulkResponse(failed(caseData, RestStatus.CONFLICT));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(bulkResponse);
+        mirror.start(MIRROR);
+
+        BulkSaveResult result = elasticSearchClient.saveAll(Collections.singletonList(caseData));
+
+        bulkRequests(1);
+        assertThat(result.getConflicts()).containsExactly(caseData.getCaseUUID());
+        assertThat(mirror.getMirrored()).isZero();
+    }
+
+    @Test
+    public void shouldMirrorUpdatedCaseFromReturnedSource() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", false));
+        CaseData caseData = caseData("MIN");
+        UpdateResponse updateResponse = updateResponse("test-case", caseData, 3);
+        when(client.update(any(), any(RequestOptions.class))).thenReturn(updateResponse);
+        BulkResponse bulkResponse = bulkResponse(indexed(MIRROR, caseData, 1, 3));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(bulkResponse);
+        mirror.start(MIRROR);
+
+        elasticSearchClient.update(caseData, Collections.singleton("type"));
+
+        assertThat(updateRequest().fetchSource().fetchSource()).isTrue();
+        IndexRequest mirrored = (IndexRequest) bulkRequests(1).get(0).requests().get(0);
+        assertThat(mirrored.index()).isEqualTo(MIRROR);
+        assertThat(mirrored.version()).isEqualTo(3);
+        verify(client, never()).get(any(), any(RequestOptions.class));
+    }
+
+    @Test
+    public void shouldMirrorUpdatedCaseWhenReindexStartsDuringUpdate() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", false));
+        CaseData caseData = caseData("MIN");
+        UpdateResponse updateResponse = updateResponse("test-case", caseData, 4);
+        when(updateResponse.getGetResult()).thenReturn(null);
+        when(client.update(any(), any(RequestOptions.class))).thenAnswer(invocation -> {
+            mirror.start(MIRROR);
+            return updateResponse;
+        });
+        GetResponse getResponse = getResponse("test-case", caseData, 5);
+        when(client.get(any(), any(RequestOptions.class))).thenReturn(getResponse);
+        BulkResponse bulkResponse = bulkResponse(indexed(MIRROR, caseData, 1, 5));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(bulkResponse);
+
+        elasticSearchClient.update(caseData, Collections.singleton("type"));
+
+        ArgumentCaptor<GetRequest> get = ArgumentCaptor.forClass(GetRequest.class);
+        verify(client).get(get.capture(), any(RequestOptions.class));
+        assertThat(get.getValue().index()).isEqualTo("test-case");
+        IndexRequest mirrored = (IndexRequest) bulkRequests(1).get(0).requests().get(0);
+        assertThat(mirrored.index()).isEqualTo(MIRROR);
+        assertThat(mirrored.version()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldReloadPartitionsBeforeCreatingMissingCase() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("monthly", "none", false));
+        CaseData stored = caseData("MIN");
+        stored.setDateReceived(LocalDate.of(2019, 2, 1));
+        partitions(List.of("test-case-2019-03"), List.of("test-case-2019-02", "test-case-2019-03"));
+        locateIn("test-case-2019-02", null, stored);
+        UpdateResponse updateResponse = updateResponse("test-case-2019-02", stored, 2);
+        when(client.update(any(), any(RequestOptions.class))).thenReturn(updateResponse);
+
+        elasticSearchClient.removeTopic(stored.getCaseUUID(), UUID.randomUUID());
+
+        verify(indicesClient, times(2)).getAlias(any(GetAliasesRequest.class), any(RequestOptions.class));
+        verify(client, times(2)).mget(any(), any(RequestOptions.class));
+        assertThat(updateRequest().index()).isEqualTo("test-case-2019-02");
+    }
+
+    @Test
+    public void shouldUpdateCachedCaseInPlaceWithoutLocatingIt() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("monthly", "none", false));
+        CaseData cached = caseData("MIN");
+        cached.setDateReceived(LocalDate.of(2019, 2, 1));
+        cached.setIndex("test-case-2019-02");
+        cached.setSeqNo(1L);
+        cached.setPrimaryTerm(1L);
+        cache.put(cached);
+        UpdateResponse updateResponse = updateResponse("test-case-2019-02", cached, 2);
+        when(client.update(any(), any(RequestOptions.class))).thenReturn(updateResponse);
+
+        elasticSearchClient.removeTopic(cached.getCaseUUID(), UUID.randomUUID());
+
+        UpdateRequest updateRequest = updateRequest();
+        assertThat(updateRequest.index()).isEqualTo("test-case-2019-02");
+        assertThat(updateRequest.upsertRequest()).isNull();
+        verify(client, never()).mget(any(), any(RequestOptions.class));
+        assertThat(cache.getAll(Set.of(cached.getCaseUUID())).get(cached.getCaseUUID()).getSeqNo()).isEqualTo(2L);
+    }
+
+    @Test
+    public void shouldLocateCaseThatIsNotWhereExpected() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("monthly", "none", false));
+        CaseData stored = caseData("MIN");
+        stored.setDateReceived(LocalDate.of(2019, 2, 1));
+        CaseData cached = stored.copy();
+        cached.setIndex("test-case-2019-01");
+        cached.setSeqNo(1L);
+        cached.setPrimaryTerm(1L);
+        cache.put(cached);
+        partitions(List.of("test-case-2019-01", "test-case-2019-02"));
+        locateIn("test-case-2019-02", null, stored);
+        UpdateResponse updateResponse = updateResponse("test-case-2019-02", stored, 3);
+        when(client.update(any(), any(RequestOptions.class)))
+                .thenThrow(new ElasticsearchStatusException("document missing", RestStatus.NOT_FOUND))
+                .thenReturn(updateResponse);
+
+        elasticSearchClient.removeTopic(stored.getCaseUUID(), UUID.randomUUID());
+
+        verify(client, times(2)).update(any(), any(RequestOptions.class));
+        verify(client, times(1)).mget(any(), any(RequestOptions.class));
+        assertThat(updateRequest(2).index()).isEqualTo("test-case-2019-02");
+    }
+
+    @Test
+    public void shouldMoveUpdatedCaseToItsNewPartition() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("monthly", "none", false));
+        CaseData caseData = caseData("MIN");
+        partitions(List.of("test-case-2019-02", "test-case-2019-03"));
+        locateIn("test-case-2019-02", null, caseData);
+        UpdateResponse updateResponse = updateResponse("test-case-2019-02", caseData, 4);
+        when(client.update(any(), any(RequestOptions.class)))
+                .thenThrow(new ElasticsearchStatusException("document missing", RestStatus.NOT_FOUND))
+                .thenReturn(updateResponse);
+
+        elasticSearchClient.update(caseData, Collections.singleton("dateReceived"));
+
+        ArgumentCaptor<IndexRequest> moved = ArgumentCaptor.forClass(IndexRequest.class);
+        verify(client).index(moved.capture(), any(RequestOptions.class));
+        assertThat(moved.getValue().index()).isEqualTo("test-case-2019-03");
+        ArgumentCaptor<DeleteRequest> removed = ArgumentCaptor.forClass(DeleteRequest.class);
+        verify(client).delete(removed.capture(), any(RequestOptions.class));
+        assertThat(removed.getValue().index()).isEqualTo("test-case-2019-02");
+        assertThat(removed.getValue().ifSeqNo()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldRemoveSavedCaseFromItsPreviousPartition() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("monthly", "none", false));
+        CaseData caseData = caseData("MIN");
+        caseData.setIndex("test-case-2019-02");
+        caseData.setSeqNo(5L);
+        caseData.setPrimaryTerm(1L);
+        BulkResponse bulkResponse = bulkResponse(indexed("test-case-2019-03", caseData, 6, 6));
+        BulkResponse cleanupResponse = bulkResponse();
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(bulkResponse, cleanupResponse);
+
+        elasticSearchClient.saveAll(Collections.singletonList(caseData));
+
+        List<BulkRequest> requests = bulkRequests(2);
+        IndexRequest written = (IndexRequest) requests.get(0).requests().get(0);
+        assertThat(written.index()).isEqualTo("test-case-2019-03");
+        assertThat(written.opType()).isEqualTo(DocWriteRequest.OpType.INDEX);
+        DeleteRequest cleanup = (DeleteRequest) requests.get(1).requests().get(0);
+        assertThat(cleanup.index()).isEqualTo("test-case-2019-02");
+        assertThat(cleanup.ifSeqNo()).isEqualTo(5);
+        assertThat(cache.getAll(Set.of(caseData.getCaseUUID())).get(caseData.getCaseUUID()).getIndex()).isEqualTo("test-case-2019-03");
+    }
+
+    @Test
+    public void shouldLocateTypedCaseOnlyUnderItsOwnRoutingAndMoveIt() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "type", false));
+        CaseData caseData = caseData("MIN");
+        locateIn("test-case", "untyped", caseData);
+        UpdateResponse updateResponse = updateResponse("test-case", caseData, 2);
+        when(client.update(any(), any(RequestOptions.class))).thenReturn(updateResponse);
+
+        elasticSearchClient.create(caseData, Collections.singleton("type"));
+
+        ArgumentCaptor<MultiGetRequest> located = ArgumentCaptor.forClass(MultiGetRequest.class);
+        verify(client).mget(located.capture(), any(RequestOptions.class));
+        assertThat(located.getValue().getItems()).extracting(MultiGetRequest.Item::routing).containsExactly(null, "untyped", "MIN");
+        assertThat(updateRequest().routing()).isEqualTo("untyped");
+        ArgumentCaptor<IndexRequest> moved = ArgumentCaptor.forClass(IndexRequest.class);
+        verify(client).index(moved.capture(), any(RequestOptions.class));
+        assertThat(moved.getValue().routing()).isEqualTo("MIN");
+        ArgumentCaptor<DeleteRequest> removed = ArgumentCaptor.forClass(DeleteRequest.class);
+        verify(client).delete(removed.capture(), any(RequestOptions.class));
+        assertThat(removed.getValue().routing()).isEqualTo("untyped");
+    }
+
+    @Test
+    public void shouldLocateUntypedCaseUnderConfiguredRoutings() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "type", false));
+        CaseData caseData = caseData("TRO");
+        locateIn("test-case", "TRO", caseData);
+        UpdateResponse updateResponse = updateResponse("test-case", caseData, 2);
+        when(client.update(any(), any(RequestOptions.class))).thenReturn(updateResponse);
+
+        elasticSearchClient.removeTopic(caseData.getCaseUUID(), UUID.randomUUID());
+
+        ArgumentCaptor<MultiGetRequest> located = ArgumentCaptor.forClass(MultiGetRequest.class);
+        verify(client).mget(located.capture(), any(RequestOptions.class));
+        assertThat(located.getValue().getItems()).extracting(MultiGetRequest.Item::routing).containsExactlyInAnyOrder(null, "untyped", "MIN", "TRO");
+        assertThat(updateRequest().routing()).isEqualTo("TRO");
+        verify(client, never()).search(any(), any(RequestOptions.class));
+        verify(client, never()).index(any(), any(RequestOptions.class));
+    }
+
+    @Test
+    public void shouldSearchSortedIndicesNewestFirstWithoutCountingHits() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", false), true);
+        UUID newest = UUID.randomUUID();
+        UUID oldest = UUID.randomUUID();
+        SearchResponse searchResponse = searchResponse(newest, oldest);
+        when(client.search(any(), any(RequestOptions.class))).thenReturn(searchResponse);
+
+        Set<UUID> results = elasticSearchClient.search(QueryBuilders.boolQuery(), 10);
+
+        assertThat(results).containsExactly(newest, oldest);
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(client).search(captor.capture(), any(RequestOptions.class));
+        SearchSourceBuilder source = captor.getValue().source();
+        assertThat(source.trackTotalHits()).isFalse();
+        assertThat(source.sorts()).hasSize(2);
+        FieldSortBuilder dateReceived = (FieldSortBuilder) source.sorts().get(0);
+        assertThat(dateReceived.getFieldName()).isEqualTo("dateReceived");
+        assertThat(dateReceived.order()).isEqualTo(SortOrder.DESC);
+        assertThat(dateReceived.missing()).isEqualTo("_last");
+        FieldSortBuilder caseUUID = (FieldSortBuilder) source.sorts().get(1);
+        assertThat(caseUUID.getFieldName()).isEqualTo("caseUUID");
+        assertThat(caseUUID.order()).isEqualTo(SortOrder.ASC);
+    }
+
+    @Test
+    public void shouldSearchUnsortedIndicesInDocOrder() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", false));
+        UUID caseUUID = UUID.randomUUID();
+        unmanagedMapping(searchResponse(caseUUID));
+
+        Set<UUID> results = elasticSearchClient.search(QueryBuilders.boolQuery(), 10);
+
+        assertThat(results).containsExactly(caseUUID);
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(client).search(captor.capture(), any(RequestOptions.class));
+        assertThat(captor.getValue().source().sorts()).extracting(sort -> ((FieldSortBuilder) sort).getFieldName()).containsExactly("_doc");
+    }
+
+    @Test
+    public void shouldReportRejectedSearchAsServerError() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", false), true);
+        unmanagedMapping(searchResponse());
+
+        assertThatThrownBy(() -> elasticSearchClient.search(QueryBuilders.boolQuery(), 10))
+                .isInstanceOf(ApplicationExceptions.ResourceServerException.class);
+        assertThatThrownBy(() -> elasticSearchClient.searchPage(QueryBuilders.boolQuery(), 10, null))
+                .isInstanceOf(ApplicationExceptions.ResourceServerException.class);
+    }
+
+    @Test
+    public void shouldSaveTieredCaseInPlaceWithoutMirroringIt() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", true));
+        CaseData caseData = caseData("MIN");
+        caseData.setIndex("test-case-cold");
+        caseData.setSeqNo(5L);
+        caseData.setPrimaryTerm(1L);
+        BulkResponse bulkResponse = bulkResponse(indexed("test-case-cold", caseData, 6, 6));
+        when(client.bulk(any(), any(RequestOptions.class))).thenReturn(bulkResponse);
+        mirror.start(MIRROR);
+
+        elasticSearchClient.saveAll(Collections.singletonList(caseData));
+
+        IndexRequest written = (IndexRequest) bulkRequests(1).get(0).requests().get(0);
+        assertThat(written.index()).isEqualTo("test-case-cold");
+        assertThat(written.ifSeqNo()).isEqualTo(5);
+        assertThat(mirror.getMirrored()).isZero();
+    }
+
+    @Test
+    public void shouldUpdateLocatedCaseInItsTierWithoutUpserting() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", true));
+        CaseData caseData = caseData("MIN");
+        locateIn("test-case-cold", null, caseData);
+        UpdateResponse updateResponse = updateResponse("test-case-cold", caseData, 2);
+        when(client.update(any(), any(RequestOptions.class))).thenReturn(updateResponse);
+        mirror.start(MIRROR);
+
+        elasticSearchClient.removeTopic(caseData.getCaseUUID(), UUID.randomUUID());
+
+        UpdateRequest updateRequest = updateRequest();
+        assertThat(updateRequest.index()).isEqualTo("test-case-cold");
+        assertThat(updateRequest.upsertRequest()).isNull();
+        verify(client, never()).index(any(), any(RequestOptions.class));
+        verify(client, never()).bulk(any(), any(RequestOptions.class));
+    }
+
+    @Test
+    public void shouldLocateCaseAgainWhenItMovesDuringUpdate() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", true));
+        CaseData caseData = caseData("MIN");
+        locateIn("test-case-cold", null, caseData);
+        UpdateResponse updateResponse = updateResponse("test-case-cold", caseData, 3);
+        when(client.update(any(), any(RequestOptions.class)))
+                .thenThrow(new ElasticsearchStatusException("document missing", RestStatus.NOT_FOUND))
+                .thenReturn(updateResponse);
+
+        elasticSearchClient.removeTopic(caseData.getCaseUUID(), UUID.randomUUID());
+
+        verify(client, times(2)).mget(any(), any(RequestOptions.class));
+        ArgumentCaptor<UpdateRequest> captor = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(client, times(2)).update(captor.capture(), any(RequestOptions.class));
+        assertThat(captor.getAllValues()).allMatch(updateRequest -> updateRequest.upsertRequest() == null);
+    }
+
+    @Test
+    public void shouldNotUpsertCaseThatKeepsMovingDuringUpdate() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", true));
+        CaseData caseData = caseData("MIN");
+        locateIn("test-case-archive", null, caseData);
+        when(client.update(any(), any(RequestOptions.class))).thenThrow(new ElasticsearchStatusException("document missing", RestStatus.NOT_FOUND));
+
+        assertThatThrownBy(() -> elasticSearchClient.removeTopic(caseData.getCaseUUID(), UUID.randomUUID()))
+                .isInstanceOf(ApplicationExceptions.ResourceServerException.class);
+
+        ArgumentCaptor<UpdateRequest> captor = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(client, times(3)).update(captor.capture(), any(RequestOptions.class));
+        assertThat(captor.getAllValues()).allMatch(updateRequest -> updateRequest.upsertRequest() == null);
+    }
+
+    @Test
+    public void shouldUpsertCaseThatIsInNoIndex() throws IOException {
+        ElasticSearchClient elasticSearchClient = client(indices("none", "none", true));
+        CaseData caseData = caseData("MIN");
+        locateIn("test-case-elsewhere", null, caseData);
+        UpdateResponse updateResponse = updateResponse("test-case", caseData, 1);
+        when(client.update(any(), any(RequestOptions.class))).thenReturn(updateResponse);
+
+        elasticSearchClient.removeTopic(caseData.getCaseUUID(), UUID.randomUUID());
+
+        UpdateRequest updateRequest = updateRequest();
+        assertThat(updateRequest.index()).isEqualTo("test-case");
+        assertThat(updateRequest.upsertRequest()).isNotNull();
+    }
+
+    private ElasticSearchClient client(CaseIndices caseIndices) {
+        return client(caseIndices, false);
+    }
+
+    private ElasticSearchClient client(CaseIndices caseIndices, boolean sorted) {
+        return new ElasticSearchClient(objectMapper, client, codec, cache, mirror, caseIndices, sorted);
+    }
+
+    private CaseIndices indices(String partitioning, String routing, boolean tiered) {
+        return new CaseIndices(client, "test", partitioning, 12, routing, "MIN,TRO", tiered);
+    }
+
+    private List<BulkRequest> bulkRequests(int count) throws IOException {
+        ArgumentCaptor<BulkRequest> captor = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(client, times(count)).bulk(captor.capture(), any(RequestOptions.class));
+        return captor.getAllValues();
+    }
+
+    private UpdateRequest updateRequest() throws IOException {
+        return updateRequest(1);
+    }
+
+    private UpdateRequest updateRequest(int count) throws IOException {
+        ArgumentCaptor<UpdateRequest> captor = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(client, times(count)).update(captor.capture(), any(RequestOptions.class));
+        return captor.getValue();
+    }
+
+    @SafeVarargs
+    private void partitions(List<String>... loads) throws IOException {
+        when(indicesClient.existsAlias(any(GetAliasesRequest.class), any(RequestOptions.class))).thenReturn(true);
+        GetAliasesResponse[] responses = new GetAliasesResponse[loads.length];
+        for (int i = 0; i < loads.length; i++) {
+            responses[i] = mock(GetAliasesResponse.class);
+            when(responses[i].getAliases()).thenReturn(loads[i].stream().collect(Collectors.toMap(Function.identity(), partition -> Collections.<AliasMetaData>emptySet())));
+        }
+        when(indicesClient.getAlias(any(GetAliasesRequest.class), any(RequestOptions.class))).thenReturn(responses[0], Arrays.copyOfRange(responses, 1, responses.length));
+    }
+
+    private void locateIn(String index, String routing, CaseData caseData) throws IOException {
+        GetResponse found = getResponse(index, caseData, 2);
+        GetResponse missing = mock(GetResponse.class);
+        when(client.mget(any(), any(RequestOptions.class))).thenAnswer(invocation -> {
+            MultiGetRequest request = invocation.getArgument(0);
+            return new MultiGetResponse(request.getItems().stream()
+                    .map(item -> new MultiGetItemResponse(index.equals(item.index()) && Objects.equals(routing, item.routing()) ? found : missing, null))
+                    .toArray(MultiGetItemResponse[]::new));
+        });
+    }
+
+    private static CaseData caseData(String type) {
+        CaseData caseData = new CaseData(UUID.randomUUID());
+        caseData.setType(type);
+        caseData.setDateReceived(LocalDate.of(2019, 3, 31));
+        return caseData;
+    }
+
+    // Indices not created from the managed template map caseUUID as text, which ES refuses to sort on
+    private void unmanagedMapping(SearchResponse searchResponse) throws IOException {
+        when(client.search(any(), any(RequestOptions.class))).thenAnswer(invocation -> {
+            SearchRequest request = invocation.getArgument(0);
+            boolean sortsOnText = request.source().sorts().stream().anyMatch(sort -> "caseUUID".equals(((FieldSortBuilder) sort).getFieldName()));
+            if (sortsOnText) {
+                throw new ElasticsearchStatusException("Fielddata is disabled on text fields by default", RestStatus.BAD_REQUEST);
+            }
+            return searchResponse;
+        });
+    }
+
+    private static SearchResponse searchResponse(UUID... caseUUIDs) {
+        SearchHit[] hits = new SearchHit[caseUUIDs.length];
+        for (int i = 0; i < caseUUIDs.length; i++) {
+            hits[i] = mock(SearchHit.class);
+            when(hits[i].getId()).thenReturn(caseUUIDs[i].toString());
+        }
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(hits, hits.length, 1.0f));
+        return response;
+    }
+
+    private static BulkResponse bulkResponse(BulkItemResponse... items) {
+        BulkResponse response = mock(BulkResponse.class);
+        when(response.getItems()).thenReturn(items);
+        return response;
+    }
+
+    private static BulkItemResponse indexed(String index, CaseData caseData, long seqNo, long version) {
+        IndexResponse indexResponse = mock(IndexResponse.class);
+        when(indexResponse.getSeqNo()).thenReturn(seqNo);
+        when(indexResponse.getPrimaryTerm()).thenReturn(1L);
+        BulkItemResponse item = mock(BulkItemResponse.class);
+        when(item.getId()).thenReturn(caseData.getCaseUUID().toString());
+        when(item.getIndex()).thenReturn(index);
+        when(item.getVersion()).thenReturn(version);
+        doReturn(indexResponse).when(item).getResponse();
+        return item;
+    }
+
+    private static BulkItemResponse failed(CaseData caseData, RestStatus status) {
+        BulkItemResponse.Failure failure = mock(BulkItemResponse.Failure.class);
+        when(failure.getStatus()).thenReturn(status);
+        BulkItemResponse item = mock(BulkItemResponse.class);
+        when(item.getId()).thenReturn(caseData.getCaseUUID().toString());
+        when(item.isFailed()).thenReturn(true);
+        when(item.getFailure()).thenReturn(failure);
+        when(item.getFailureMessage()).thenReturn(status.name());
+        return item;
+    }
+
+    private UpdateResponse updateResponse(String index, CaseData caseData, long version) {
+        GetResult result = mock(GetResult.class);
+        when(result.isExists()).thenReturn(true);
+        when(result.sourceRef()).thenReturn(new BytesArray(codec.write(caseData)));
+        UpdateResponse response = mock(UpdateResponse.class);
+        when(response.getIndex()).thenReturn(index);
+        when(response.getId()).thenReturn(caseData.getCaseUUID().toString());
+        when(response.getVersion()).thenReturn(version);
+        when(response.getSeqNo()).thenReturn(version);
+        when(response.getPrimaryTerm()).thenReturn(1L);
+        when(response.getGetResult()).thenReturn(result);
+        return response;
+    }
+
+    private GetResponse getResponse(String index, CaseData caseData, long version) {
+        GetResponse response = mock(GetResponse.class);
+        when(response.isExists()).thenReturn(true);
+        when(response.isSourceEmpty()).thenReturn(false);
+        when(response.getIndex()).thenReturn(index);
+        when(response.getId()).thenReturn(caseData.getCaseUUID().toString());
+        when(response.getVersion()).thenReturn(version);
+        when(response.getSeqNo()).thenReturn(version);
+        when(response.getPrimaryTerm()).thenReturn(1L);
+        when(response.getSourceAsBytesRef()).thenReturn(new BytesArray(codec.write(caseData)));
+        return response;
+    }
+}
@@ -113,7 +113,7 @@ public class CaseDataTest {
         assertThat(caseData.getCurrentCorrespondents()).isEmpty();
         assertThat(caseData.getAllCorrespondents()).isEmpty();
 
-        caseData.addCorrespondent(validCreateCorrespondentRequest);
+        caseData.addCorrespondent(Correspondent.from(validCreateCorrespondentRequest));
 
         assertThat(caseData.getCurrentCorrespondents()).hasSize(1);
         assertThat(caseData.getAllCorrespondents()).hasSize(1);
@@ -127,7 +127,7 @@ public class CaseDataTest {
         assertThat(caseData.getCurrentCorrespondents()).isEmpty();
         assertThat(caseData.getAllCorrespondents()).isEmpty();
 
-        caseData.addCorrespondent(validCreateCorrespondentRequest);
+        caseData.addCorrespondent(Correspondent.from(validCreateCorrespondentRequest));
 
         caseData.removeCorrespondent(validCreateCorrespondentRequest.getUuid());
 
@@ -163,4 +163,51 @@ public class CaseDataTest {
         assertThat(caseData.getCurrentTopics()).hasSize(0);
         assertThat(caseData.getAllTopics()).hasSize(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldNotOverwriteExistingFieldsOnCreate() {
+        CaseData caseData = new CaseData(caseUUID);
+
+        caseData.update(validUpdateCaseRequest);
+        caseData.create(new CreateCaseRequest(UUID.randomUUID(), LocalDateTime.now().minusDays(1), "TRO", "OTHER", LocalDate.now(), LocalDate.now()));
+
+        assertThat(caseData.getType()).isEqualTo(validUpdateCaseRequest.getType());
+        assertThat(caseData.getReference()).isEqualTo(validUpdateCaseRequest.getReference());
+        assertThat(caseData.getCreated()).isEqualTo(validUpdateCaseRequest.getCreated());
+    }
+
+    @Test
+    public void shouldNotDuplicateCorrespondent() {
+        CaseData caseData = new CaseData(caseUUID);
+
+        caseData.addCorrespondent(Correspondent.from(validCreateCorrespondentRequest));
+        caseData.addCorrespondent(Correspondent.from(validCreateCorrespondentRequest));
+
+        assertThat(caseData.getCurrentCorrespondents()).hasSize(1);
+        assertThat(caseData.getAllCorrespondents()).hasSize(1);
+    }
+
+    @Test
+    public void shouldKeepCorrespondentRemovedBeforeAdded() {
+        CaseData caseData = new CaseData(caseUUID);
+
+        caseData.removeCorrespondent(validCreateCorrespondentRequest.getUuid());
+        caseData.addCorrespondent(Correspondent.from(validCreateCorrespondentRequest));
+
+        assertThat(caseData.getCurrentCorrespondents()).hasSize(0);
+        assertThat(caseData.getAllCorrespondents()).hasSize(1);
+        assertThat(caseData.getRemovedCorrespondents()).containsOnly(validCreateCorrespondentRequest.getUuid());
+    }
+
+    @Test
+    public void shouldKeepTopicRemovedBeforeAdded() {
+        CaseData caseData = new CaseData(caseUUID);
+
+        caseData.removeTopic(validTopic.getUuid());
+        caseData.addTopic(validTopic);
+
+        assertThat(caseData.getCurrentTopics()).hasSize(0);
+        assertThat(caseData.getAllTopics()).hasSize(1);
+        assertThat(caseData.getRemovedTopics()).containsOnly(validTopic.getUuid());
+    }
+}
@@ -20,4 +20,15 @@ public class TopicTest {
         assertThat(topic.getText()).isEqualTo(value);
     }
 
+    @Test
+    public void shouldBeEqualByUuid() {
+        UUID uuid = UUID.randomUUID();
+
+        Topic topic = Topic.from(new CreateTopicRequest(uuid, "VALUE"));
+        Topic renamed = Topic.from(new CreateTopicRequest(uuid, "OTHER"));
+
+        assertThat(topic).isEqualTo(renamed);
+        assertThat(topic.hashCode()).isEqualTo(renamed.hashCode());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package uk.gov.digital.ho.hocs.search.queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import uk.gov.digital.ho.hocs.search.application.queue.AdaptiveConcurrencyLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    public void shouldIncreaseLimitWhileSaturatedAndHealthy() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 3, 100, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(FAST, true);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        limiter.acquire();
+        limiter.acquire();
+        limiter.release(FAST, true);
+        limiter.release(FAST, true);
+
+        assertThat(limiter.getLimit()).isEqualTo(3);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    public void shouldBackOffWhenSlow() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 3, 100, new SimpleMeterRegistry());
+        limiter.acquire();
+        limiter.release(FAST, true);
+        limiter.acquire();
+        limiter.acquire();
+        limiter.release(FAST, true);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+
+        limiter.release(SLOW, true);
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldBackOffOnFailureButNotBelowMinimum() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 3, 100, new SimpleMeterRegistry());
+
+        limiter.acquire();
+        limiter.release(FAST, false);
+
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+}
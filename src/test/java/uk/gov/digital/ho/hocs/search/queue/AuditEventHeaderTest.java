@@ -0,0 +1,44 @@
+package uk.gov.digital.ho.hocs.search.queue;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.Test;
+import uk.gov.digital.ho.hocs.search.application.queue.AuditEventHeader;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuditEventHeaderTest {
+
+    @Test
+    public void shouldReadTypeAndCaseUUID() throws IOException {
+        UUID caseUUID = UUID.randomUUID();
+
+        AuditEventHeader header = AuditEventHeader.peek("{\"data\":\"{\\\"nested\\\":{\\\"type\\\":\\\"OTHER\\\"}}\",\"meta\":{\"type\":\"NESTED\"},\"caseUUID\":\"" + caseUUID + "\",\"type\":\"CASE_CREATED\"}");
+
+        assertThat(header.getType()).isEqualTo("CASE_CREATED");
+        assertThat(header.getCaseUUID()).isEqualTo(caseUUID);
+    }
+
+    @Test
+    public void shouldStopReadingOnceFound() throws IOException {
+        AuditEventHeader header = AuditEventHeader.peek("{\"type\":\"UNKNOWN\",\"caseUUID\":null,\"data\":{invalid");
+
+        assertThat(header.getType()).isEqualTo("UNKNOWN");
+        assertThat(header.getCaseUUID()).isNull();
+    }
+
+    @Test
+    public void shouldAllowMissingFields() throws IOException {
+        AuditEventHeader header = AuditEventHeader.peek("{}");
+
+        assertThat(header.getType()).isNull();
+        assertThat(header.getCaseUUID()).isNull();
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void shouldRejectNonObject() throws IOException {
+        AuditEventHeader.peek("\"{invalid:invalid}\"");
+    }
+}
@@ -0,0 +1,76 @@
+package uk.gov.digital.ho.hocs.search.queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.digital.ho.hocs.search.application.queue.AdaptiveConcurrencyLimiter;
+import uk.gov.digital.ho.hocs.search.application.queue.CaseOrderedProcessor;
+import uk.gov.digital.ho.hocs.search.application.queue.StripedExecutor;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class CaseOrderedProcessorTest {
+
+    private StripedExecutor executor;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @Before
+    public void setup() {
+        executor = new StripedExecutor("test", 2, 10, new SimpleMeterRegistry());
+        limiter = mock(AdaptiveConcurrencyLimiter.class);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldReleaseAsSucceeded() throws InterruptedException {
+        process(new CaseOrderedProcessor(executor, limiter, exchange -> { }, new SimpleMeterRegistry()));
+
+        verify(limiter).release(anyLong(), eq(true));
+    }
+
+    @Test
+    public void shouldReleaseAsFailedWhenDelegateThrows() throws InterruptedException {
+        Exchange exchange = process(new CaseOrderedProcessor(executor, limiter, e -> {
+            throw new IllegalStateException("failed");
+        }, new SimpleMeterRegistry()));
+
+        verify(limiter).release(anyLong(), eq(false));
+        assertThat(exchange.getException()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldReleaseAsFailedWhenFailureWasAlreadyHandled() throws InterruptedException {
+        process(new CaseOrderedProcessor(executor, limiter, exchange -> {
+            exchange.setProperty(Exchange.EXCEPTION_CAUGHT, new IllegalStateException("failed"));
+            exchange.setProperty(Exchange.FAILURE_HANDLED, true);
+        }, new SimpleMeterRegistry()));
+
+        verify(limiter).release(anyLong(), eq(false));
+    }
+
+    private static Exchange process(CaseOrderedProcessor processor) throws InterruptedException {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.setProperty("caseUUID", UUID.randomUUID());
+        CountDownLatch done = new CountDownLatch(1);
+        processor.process(exchange, doneSync -> done.countDown());
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        return exchange;
+    }
+}
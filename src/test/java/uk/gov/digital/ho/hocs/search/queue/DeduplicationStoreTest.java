@@ -0,0 +1,47 @@
+package uk.gov.digital.ho.hocs.search.queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import uk.gov.digital.ho.hocs.search.application.queue.DeduplicationStore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeduplicationStoreTest {
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void shouldDetectRecordedKey() {
+        DeduplicationStore store = new DeduplicationStore(10, meterRegistry);
+
+        assertThat(store.isDuplicate("a")).isFalse();
+        store.record("a");
+
+        assertThat(store.isDuplicate("a")).isTrue();
+        assertThat(store.isDuplicate("b")).isFalse();
+        assertThat(meterRegistry.counter("search.ingest.duplicates").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldForgetKeysOutsideWindow() {
+        DeduplicationStore store = new DeduplicationStore(2, meterRegistry);
+
+        store.record("a");
+        store.record("b");
+        store.record("c");
+
+        assertThat(store.isDuplicate("a")).isFalse();
+        assertThat(store.isDuplicate("b")).isTrue();
+        assertThat(store.isDuplicate("c")).isTrue();
+        assertThat(store.windowSize()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldIgnoreMissingKey() {
+        DeduplicationStore store = new DeduplicationStore(10, meterRegistry);
+
+        store.record(null);
+
+        assertThat(store.isDuplicate(null)).isFalse();
+    }
+}
@@ -0,0 +1,131 @@
+package uk.gov.digital.ho.hocs.search.queue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.digital.ho.hocs.search.api.CaseDataService;
+import uk.gov.digital.ho.hocs.search.application.queue.AdaptiveConcurrencyLimiter;
+import uk.gov.digital.ho.hocs.search.application.queue.CaseEventHandlers;
+import uk.gov.digital.ho.hocs.search.application.queue.CreateAuditDto;
+import uk.gov.digital.ho.hocs.search.application.queue.DeduplicationStore;
+import uk.gov.digital.ho.hocs.search.application.queue.EventType;
+import uk.gov.digital.ho.hocs.search.application.queue.SearchBatchConsumer;
+import uk.gov.digital.ho.hocs.search.application.queue.SearchQueueEndpoint;
+import uk.gov.digital.ho.hocs.search.application.queue.SqsBatchAcknowledger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchBatchConsumerTest extends CamelTestSupport {
+
+    private String searchQueue = "direct:search-queue";
+    private String dlq = "mock:search-queue-dlq";
+    private ObjectMapper mapper;
+
+    private UUID caseUUID;
+    private UUID otherCaseUUID;
+
+    @Mock
+    private CaseDataService mockDataService;
+
+    @Mock
+    private SqsBatchAcknowledger mockAcknowledger;
+
+    @Before
+    public void setUpTest() {
+
+        mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        caseUUID = UUID.randomUUID();
+        otherCaseUUID = UUID.randomUUID();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new SearchBatchConsumer(mockDataService, new CaseEventHandlers(mockDataService, objectMapper, new SimpleMeterRegistry()), objectMapper, mockAcknowledger, AdaptiveConcurrencyLimiter.fixed(1, new SimpleMeterRegistry()), new DeduplicationStore(10, new SimpleMeterRegistry()), new SimpleMeterRegistry(), new SearchQueueEndpoint(searchQueue, 1, 0, 1, 30, 0), dlq, 3, 60000, 0, 0, 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldApplyBatchOnce() throws JsonProcessingException {
+
+        when(mockDataService.applyAll(anyMap())).thenReturn(new HashMap<>());
+
+        template.sendBody(searchQueue, mapper.writeValueAsString(new CreateAuditDto(caseUUID, "{}", EventType.CASE_CREATED.toString())));
+        template.sendBody(searchQueue, mapper.writeValueAsString(new CreateAuditDto(caseUUID, "{}", EventType.CASE_UPDATED.toString())));
+        template.sendBody(searchQueue, mapper.writeValueAsString(new CreateAuditDto(otherCaseUUID, "{}", EventType.CASE_COMPLETED.toString())));
+
+        ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+        verify(mockDataService, times(1)).applyAll(captor.capture());
+        verifyNoMoreInteractions(mockDataService);
+
+        assertThat(captor.getValue()).containsOnlyKeys(caseUUID, otherCaseUUID);
+        assertThat((List) captor.getValue().get(caseUUID)).hasSize(2);
+        verify(mockAcknowledger, times(1)).acknowledge(anyList());
+    }
+
+    @Test
+    public void shouldIgnoreUnknownTypes() throws JsonProcessingException {
+
+        template.sendBody(searchQueue, mapper.writeValueAsString(new CreateAuditDto(caseUUID, "{}", "UNKNOWN")));
+        template.sendBody(searchQueue, mapper.writeValueAsString(new CreateAuditDto(caseUUID, "{}", "UNKNOWN")));
+        template.sendBody(searchQueue, mapper.writeValueAsString(new CreateAuditDto(caseUUID, "{}", "UNKNOWN")));
+
+        verifyZeroInteractions(mockDataService);
+        verify(mockAcknowledger, times(1)).acknowledge(anyList());
+    }
+
+    @Test
+    public void shouldTransferFailedItemsToDLQ() throws JsonProcessingException, InterruptedException {
+
+        when(mockDataService.applyAll(anyMap())).thenReturn(Collections.singletonMap(caseUUID, "failed"));
+        getMockEndpoint(dlq).setExpectedCount(2);
+
+        template.sendBody(searchQueue, mapper.writeValueAsString(new CreateAuditDto(caseUUID, "{}", EventType.CASE_CREATED.toString())));
+        template.sendBody(searchQueue, mapper.writeValueAsString(new CreateAuditDto(otherCaseUUID, "{}", EventType.CASE_CREATED.toString())));
+        template.sendBody(searchQueue, "{invalid:invalid}");
+
+        getMockEndpoint(dlq).assertIsSatisfied();
+        verify(mockAcknowledger, times(1)).acknowledge(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldLeaveBatchForRedeliveryWhenWritesFail() throws JsonProcessingException, InterruptedException {
+
+        when(mockDataService.applyAll(anyMap())).thenThrow(new RuntimeException("unavailable"));
+        getMockEndpoint(dlq).setExpectedCount(1);
+
+        template.sendBody(searchQueue, mapper.writeValueAsString(new CreateAuditDto(caseUUID, "{}", EventType.CASE_CREATED.toString())));
+        template.sendBody(searchQueue, mapper.writeValueAsString(new CreateAuditDto(otherCaseUUID, "{}", EventType.CASE_CREATED.toString())));
+        template.sendBody(searchQueue, "{invalid:invalid}");
+
+        getMockEndpoint(dlq).assertIsSatisfied();
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockAcknowledger, times(1)).acknowledge(captor.capture());
+        assertThat(captor.getValue()).hasSize(1);
+    }
+
+}
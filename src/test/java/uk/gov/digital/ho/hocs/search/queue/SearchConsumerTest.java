@@ -4,7 +4,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.aws.sqs.SqsConstants;
 import org.apache.camel.test.junit4.CamelTestSupport;
 import org.junit.Before;
 import org.junit.Test;
@@ -16,9 +18,14 @@ import uk.gov.digital.ho.hocs.search.api.dto.CreateCaseRequest;
 import uk.gov.digital.ho.hocs.search.api.dto.CreateCorrespondentRequest;
 import uk.gov.digital.ho.hocs.search.api.dto.CreateTopicRequest;
 import uk.gov.digital.ho.hocs.search.api.dto.UpdateCaseRequest;
+import uk.gov.digital.ho.hocs.search.application.queue.AdaptiveConcurrencyLimiter;
+import uk.gov.digital.ho.hocs.search.application.queue.CaseEventHandlers;
 import uk.gov.digital.ho.hocs.search.application.queue.CreateAuditDto;
+import uk.gov.digital.ho.hocs.search.application.queue.DeduplicationStore;
 import uk.gov.digital.ho.hocs.search.application.queue.EventType;
 import uk.gov.digital.ho.hocs.search.application.queue.SearchConsumer;
+import uk.gov.digital.ho.hocs.search.application.queue.SearchQueueEndpoint;
+import uk.gov.digital.ho.hocs.search.application.queue.StripedExecutor;
 
 import java.util.UUID;
 
@@ -50,7 +57,7 @@ public class SearchConsumerTest extends CamelTestSupport {
 
     @Override
     protected RouteBuilder createRouteBuilder() {
-        return new SearchConsumer(mockDataService, searchQueue, dlq, 0, 0, 0);
+        return new SearchConsumer(new CaseEventHandlers(mockDataService, new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry()), new StripedExecutor("search.ingest", 2, 10, new SimpleMeterRegistry()), AdaptiveConcurrencyLimiter.fixed(10, new SimpleMeterRegistry()), new DeduplicationStore(10, new SimpleMeterRegistry()), new SimpleMeterRegistry(), new SearchQueueEndpoint(searchQueue, 1, 0, 1, 30, 0), dlq, 0, 0, 0);
 
     }
 
@@ -156,4 +163,25 @@ public class SearchConsumerTest extends CamelTestSupport {
         getMockEndpoint(dlq).assertIsSatisfied();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldDropRedeliveredMessage() throws JsonProcessingException {
+
+        CreateAuditDto auditDto = new CreateAuditDto(caseUUID, data, EventType.CASE_COMPLETED.toString());
+        String json = mapper.writeValueAsString(auditDto);
+        template.sendBodyAndHeader(searchQueue, json, SqsConstants.MESSAGE_ID, "message-1");
+        template.sendBodyAndHeader(searchQueue, json, SqsConstants.MESSAGE_ID, "message-1");
+        template.sendBodyAndHeader(searchQueue, json, SqsConstants.MESSAGE_ID, "message-2");
+        verify(mockDataService, times(2)).completeCase(eq(caseUUID));
+        verifyNoMoreInteractions(mockDataService);
+    }
+
+    @Test
+    public void shouldIgnoreUnknownType() throws JsonProcessingException {
+
+        CreateAuditDto auditDto = new CreateAuditDto(caseUUID, "{invalid", "UNKNOWN");
+        String json = mapper.writeValueAsString(auditDto);
+        template.sendBody(searchQueue, json);
+        verifyZeroInteractions(mockDataService);
+    }
+
+}
@@ -0,0 +1,39 @@
+package uk.gov.digital.ho.hocs.search.queue;
+
+import org.junit.Test;
+import uk.gov.digital.ho.hocs.search.application.queue.SearchQueueEndpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchQueueEndpointTest {
+
+    @Test
+    public void shouldConfigureSqsConsumer() {
+        SearchQueueEndpoint endpoint = new SearchQueueEndpoint("aws-sqs://queue?amazonSQSClient=#sqsClient", 4, 20, 10, 30, 2);
+
+        assertThat(endpoint.single()).isEqualTo("aws-sqs://queue?amazonSQSClient=#sqsClient&concurrentConsumers=4&waitTimeSeconds=20"
+                + "&maxMessagesPerPoll=10&visibilityTimeout=50&extendMessageVisibility=true&deleteAfterRead=true");
+    }
+
+    @Test
+    public void shouldScaleBatchVisibilityTimeoutWithMessagesPerPoll() {
+        SearchQueueEndpoint endpoint = new SearchQueueEndpoint("aws-sqs://queue", 2, 20, 10, 30, 2);
+
+        assertThat(endpoint.batch(50, 1500)).isEqualTo("aws-sqs://queue?concurrentConsumers=2&waitTimeSeconds=20"
+                + "&maxMessagesPerPoll=10&visibilityTimeout=52&extendMessageVisibility=true&deleteAfterRead=false");
+    }
+
+    @Test
+    public void shouldConfigureSedaConsumers() {
+        SearchQueueEndpoint endpoint = new SearchQueueEndpoint("seda://queue", 4, 20, 10, 30, 2);
+
+        assertThat(endpoint.single()).isEqualTo("seda://queue?concurrentConsumers=4");
+    }
+
+    @Test
+    public void shouldNotChangeOtherEndpoints() {
+        SearchQueueEndpoint endpoint = new SearchQueueEndpoint("direct:queue", 4, 20, 10, 30, 2);
+
+        assertThat(endpoint.single()).isEqualTo("direct:queue");
+    }
+}
@@ -0,0 +1,80 @@
+package uk.gov.digital.ho.hocs.search.queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.digital.ho.hocs.search.application.queue.StripedExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StripedExecutorTest {
+
+    private StripedExecutor executor;
+
+    @Before
+    public void setup() {
+        executor = new StripedExecutor("test", 4, 10, new SimpleMeterRegistry());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldRunTasksForSameKeyInOrder() throws InterruptedException {
+        UUID caseUUID = UUID.randomUUID();
+        List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            executor.execute(caseUUID, () -> {
+                results.add(value);
+                latch.countDown();
+            });
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(results).hasSize(100).isSorted();
+    }
+
+    @Test
+    public void shouldRunDifferentKeysInParallel() throws InterruptedException {
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(0, () -> {
+            try {
+                blocker.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(1, done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        blocker.countDown();
+    }
+
+    @Test
+    public void shouldDrainQueuedTasksOnShutdown() throws InterruptedException {
+        AtomicInteger count = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            executor.execute(i, count::incrementAndGet);
+        }
+        executor.shutdown();
+
+        assertThat(count.get()).isEqualTo(10);
+    }
+}